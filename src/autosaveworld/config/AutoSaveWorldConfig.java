@@ -34,6 +34,9 @@ public class AutoSaveWorldConfig {
 
 	// some global variables
 	public boolean varDebug = false;
+	public boolean varDebugAsync = true;
+	public int varDebugQueueSize = 10000;
+	public boolean varDebugFile = false;
 	public boolean commandOnlyFromConsole = false;
 	// save
 	public int saveInterval = 900;
@@ -92,23 +95,40 @@ public class AutoSaveWorldConfig {
 	public List<String> purgeIgnoredNicks;
 	public List<String> purgeIgnoredUUIDs;
 	public boolean purgeBroadcast = true;
+	public boolean purgeIncremental = false;
+	public int purgeIncrementalFullPurgeInterval = 10;
 	public boolean purgeWG = true;
+	public long purgeRegenTickBudget = 20;
 	public boolean purgeWGRegenRg = false;
 	public boolean purgeWGNoregenOverlap = true;
 	public boolean purgeLWC = true;
 	public boolean purgeLWCDelProtectedBlocks = false;
+	public int purgeLWCPageSize = 500;
 	public boolean purgeResidence = true;
 	public boolean purgeResidenceRegenArea = false;
 	public boolean purgePerms = true;
 	public String purgePermsSaveCMD = "mansave";
+	public long purgePermsTickBudget = 5;
 	public boolean purgeMyWarp = true;
 	public boolean purgeDat = true;
+	public int purgeDatThreads = 4;
 	// crashrestart
 	public boolean crashRestartEnabled = false;
 	public String crashRestartScriptPath = "";
 	public boolean crashRestartJustStop = false;
 	public long crashRestartTimeout = 60;
 	public int crashRestartCheckerStartDelay = 20;
+	public long crashRestartShutdownTimeout = 60;
+	public long crashRestartShutdownPluginTimeout = 10;
+	public int crashRestartShutdownSaveThreads = 4;
+	public long crashRestartStallThreshold = 5;
+	public long crashRestartStallSampleInterval = 100;
+	public boolean tickProfilerEnabled = false;
+	public long tickProfilerSpikeThreshold = 200;
+	public long tickProfilerSampleInterval = 10;
+	// restart
+	public boolean restartFastRestart = false;
+
 	// autorestart
 	public boolean autoRestart = false;
 	public boolean autoRestartBroadcast = true;
@@ -118,6 +138,11 @@ public class AutoSaveWorldConfig {
 	public List<Integer> autoRestartCountdownSeconds;
 	public List<String> autoRestartPreStopCommmands;
 	public boolean autoRestartJustStop = false;
+	public boolean autoRestartDrain = false;
+	public int autoRestartDrainSaveBatch = 10;
+	public String autoRestartDrainFallbackServer = "";
+	public int autoRestartLoginRateLimit = 0;
+	public long autoRestartLoginRateLimitDuration = 60;
 	// consolecmmand
 	public boolean ccTimesModeEnabled = false;
 	public Map<String, List<String>> ccTimesModeCommands;
@@ -130,8 +155,23 @@ public class AutoSaveWorldConfig {
 	public boolean worldRegenSaveGP = true;
 	public boolean worldregenSaveTowny = true;
 	public boolean worldregenSavePStones = true;
+	public boolean worldRegenRegionFiles = false;
+	public long worldRegenTickBudget = 20;
+	public int worldRegenSaveThreads = 2;
+	public int worldRegenLoadThreads = 2;
 	// network watcher
 	public boolean networkWatcher = true;
+	public boolean networkWatcherAggregate = false;
+	public int networkWatcherAggregateInterval = 300;
+	// blocking watcher
+	public boolean blockingWatcher = false;
+	public long blockingWatcherSampleInterval = 10;
+	public boolean blockingWatcherHooks = false;
+	public int blockingWatcherReportInterval = 300;
+	// process manager
+	public int processManagerOutputBufferLines = 1000;
+	public boolean processManagerOutputToFile = false;
+	public long processManagerOutputFileMaxSize = 1024;
 
 	public void load() {
 
@@ -139,6 +179,9 @@ public class AutoSaveWorldConfig {
 
 		// variables
 		varDebug = config.getBoolean("var.debug", varDebug);
+		varDebugAsync = config.getBoolean("var.debugasync.enabled", varDebugAsync);
+		varDebugQueueSize = config.getInt("var.debugasync.queuesize", varDebugQueueSize);
+		varDebugFile = config.getBoolean("var.debugasync.file", varDebugFile);
 		commandOnlyFromConsole = config.getBoolean("var.commandsonlyfromconsole", commandOnlyFromConsole);
 
 		// save variables
@@ -212,17 +255,23 @@ public class AutoSaveWorldConfig {
 		purgeIgnoredNicks = config.getStringList("purge.ignorednicks");
 		purgeIgnoredUUIDs = config.getStringList("purge.ignoreduuids");
 		purgeBroadcast = config.getBoolean("purge.broadcast", purgeBroadcast);
+		purgeIncremental = config.getBoolean("purge.incremental.enabled", purgeIncremental);
+		purgeIncrementalFullPurgeInterval = config.getInt("purge.incremental.fullpurgeinterval", purgeIncrementalFullPurgeInterval);
 		purgeWG = config.getBoolean("purge.wg.enabled", purgeWG);
+		purgeRegenTickBudget = config.getLong("purge.regen.tickbudget", purgeRegenTickBudget);
 		purgeWGRegenRg = config.getBoolean("purge.wg.regenpurgedregion", purgeWGRegenRg);
 		purgeWGNoregenOverlap = config.getBoolean("purge.wg.noregenoverlapregion", purgeWGNoregenOverlap);
 		purgeLWC = config.getBoolean("purge.lwc.enabled", purgeLWC);
 		purgeLWCDelProtectedBlocks = config.getBoolean("purge.lwc.deletepurgedblocks", purgeLWCDelProtectedBlocks);
+		purgeLWCPageSize = config.getInt("purge.lwc.pagesize", purgeLWCPageSize);
 		purgeResidence = config.getBoolean("purge.residence.enabled", purgeResidence);
 		purgeResidenceRegenArea = config.getBoolean("purge.residence.regenpurgedresidence", purgeResidenceRegenArea);
 		purgePerms = config.getBoolean("purge.permissions.enabled", purgePerms);
 		purgePermsSaveCMD = config.getString("purge.permissions.savecmd", purgePermsSaveCMD);
+		purgePermsTickBudget = config.getLong("purge.permissions.tickbudget", purgePermsTickBudget);
 		purgeMyWarp = config.getBoolean("purge.mywarp.enabled", purgeMyWarp);
 		purgeDat = config.getBoolean("purge.dat.enabled", purgeDat);
+		purgeDatThreads = config.getInt("purge.dat.threads", purgeDatThreads);
 
 		// crashrestart variables
 		crashRestartEnabled = config.getBoolean("crashrestart.enabled", crashRestartEnabled);
@@ -230,6 +279,17 @@ public class AutoSaveWorldConfig {
 		crashRestartScriptPath = config.getString("crashrestart.scriptpath", crashRestartScriptPath);
 		crashRestartTimeout = config.getLong("crashrestart.timeout", crashRestartTimeout);
 		crashRestartJustStop = config.getBoolean("crashrestart.juststop", crashRestartJustStop);
+		crashRestartShutdownTimeout = config.getLong("crashrestart.shutdown.timeout", crashRestartShutdownTimeout);
+		crashRestartShutdownPluginTimeout = config.getLong("crashrestart.shutdown.plugintimeout", crashRestartShutdownPluginTimeout);
+		crashRestartShutdownSaveThreads = config.getInt("crashrestart.shutdown.savethreads", crashRestartShutdownSaveThreads);
+		crashRestartStallThreshold = config.getLong("crashrestart.stall.threshold", crashRestartStallThreshold);
+		crashRestartStallSampleInterval = config.getLong("crashrestart.stall.sampleinterval", crashRestartStallSampleInterval);
+		tickProfilerEnabled = config.getBoolean("crashrestart.profiler.enabled", tickProfilerEnabled);
+		tickProfilerSpikeThreshold = config.getLong("crashrestart.profiler.spikethreshold", tickProfilerSpikeThreshold);
+		tickProfilerSampleInterval = config.getLong("crashrestart.profiler.sampleinterval", tickProfilerSampleInterval);
+
+		// restart variables
+		restartFastRestart = config.getBoolean("restart.fastrestart", restartFastRestart);
 
 		// autorestart variables
 		autoRestart = config.getBoolean("autorestart.enabled", autoRestart);
@@ -240,6 +300,11 @@ public class AutoSaveWorldConfig {
 		autoRestartPreStopCommmands = config.getStringList("autorestart.commands");
 		autoRestartScriptPath = config.getString("autorestart.scriptpath", autoRestartScriptPath);
 		autoRestartJustStop = config.getBoolean("autorestart.juststop", autoRestartJustStop);
+		autoRestartDrain = config.getBoolean("autorestart.drain.enabled", autoRestartDrain);
+		autoRestartDrainSaveBatch = config.getInt("autorestart.drain.savebatch", autoRestartDrainSaveBatch);
+		autoRestartDrainFallbackServer = config.getString("autorestart.drain.fallbackserver", autoRestartDrainFallbackServer);
+		autoRestartLoginRateLimit = config.getInt("autorestart.loginratelimit.loginspersecond", autoRestartLoginRateLimit);
+		autoRestartLoginRateLimitDuration = config.getLong("autorestart.loginratelimit.duration", autoRestartLoginRateLimitDuration);
 		if (autoRestartCountdownSeconds.size() == 0) {
 			autoRestartCountdownSeconds.add(60);
 			autoRestartCountdownSeconds.add(30);
@@ -278,9 +343,26 @@ public class AutoSaveWorldConfig {
 		worldRegenSaveGP = config.getBoolean("worldregen.savegp", worldRegenSaveGP);
 		worldregenSaveTowny = config.getBoolean("worldregen.savetowny", worldregenSaveTowny);
 		worldregenSavePStones = config.getBoolean("worldregen.savepstones", worldregenSavePStones);
+		worldRegenRegionFiles = config.getBoolean("worldregen.regionfiles", worldRegenRegionFiles);
+		worldRegenTickBudget = config.getLong("worldregen.tickbudget", worldRegenTickBudget);
+		worldRegenSaveThreads = config.getInt("worldregen.savethreads", worldRegenSaveThreads);
+		worldRegenLoadThreads = config.getInt("worldregen.loadthreads", worldRegenLoadThreads);
 
 		// network watcher variables
 		networkWatcher = config.getBoolean("networkwatcher.warnmainthreadnetwrokaccess", networkWatcher);
+		networkWatcherAggregate = config.getBoolean("networkwatcher.aggregate.enabled", networkWatcherAggregate);
+		networkWatcherAggregateInterval = config.getInt("networkwatcher.aggregate.interval", networkWatcherAggregateInterval);
+
+		// blocking watcher variables
+		blockingWatcher = config.getBoolean("blockingwatcher.enabled", blockingWatcher);
+		blockingWatcherSampleInterval = config.getLong("blockingwatcher.sampleinterval", blockingWatcherSampleInterval);
+		blockingWatcherHooks = config.getBoolean("blockingwatcher.hooks", blockingWatcherHooks);
+		blockingWatcherReportInterval = config.getInt("blockingwatcher.reportinterval", blockingWatcherReportInterval);
+
+		// process manager variables
+		processManagerOutputBufferLines = config.getInt("processmanager.outputbufferlines", processManagerOutputBufferLines);
+		processManagerOutputToFile = config.getBoolean("processmanager.outputfile.enabled", processManagerOutputToFile);
+		processManagerOutputFileMaxSize = config.getLong("processmanager.outputfile.maxsize", processManagerOutputFileMaxSize);
 
 		save();
 	}
@@ -291,6 +373,9 @@ public class AutoSaveWorldConfig {
 
 		// Variables
 		config.set("var.debug", varDebug);
+		config.set("var.debugasync.enabled", varDebugAsync);
+		config.set("var.debugasync.queuesize", varDebugQueueSize);
+		config.set("var.debugasync.file", varDebugFile);
 		config.set("var.commandsonlyfromconsole", commandOnlyFromConsole);
 
 		// save variables
@@ -352,17 +437,23 @@ public class AutoSaveWorldConfig {
 		config.set("purge.ignorednicks", purgeIgnoredNicks);
 		config.set("purge.ignoreduuids", purgeIgnoredUUIDs);
 		config.set("purge.broadcast", purgeBroadcast);
+		config.set("purge.incremental.enabled", purgeIncremental);
+		config.set("purge.incremental.fullpurgeinterval", purgeIncrementalFullPurgeInterval);
 		config.set("purge.wg.enabled", purgeWG);
+		config.set("purge.regen.tickbudget", purgeRegenTickBudget);
 		config.set("purge.wg.regenpurgedregion", purgeWGRegenRg);
 		config.set("purge.wg.noregenoverlapregion", purgeWGNoregenOverlap);
 		config.set("purge.lwc.enabled", purgeLWC);
 		config.set("purge.lwc.deletepurgedblocks", purgeLWCDelProtectedBlocks);
+		config.set("purge.lwc.pagesize", purgeLWCPageSize);
 		config.set("purge.residence.enabled", purgeResidence);
 		config.set("purge.residence.regenpurgedresidence", purgeResidenceRegenArea);
 		config.set("purge.permissions.enabled", purgePerms);
 		config.set("purge.permissions.savecmd", purgePermsSaveCMD);
+		config.set("purge.permissions.tickbudget", purgePermsTickBudget);
 		config.set("purge.mywarp.enabled", purgeMyWarp);
 		config.set("purge.dat.enabled", purgeDat);
+		config.set("purge.dat.threads", purgeDatThreads);
 
 		// crashrestart variables
 		config.set("crashrestart.enabled", crashRestartEnabled);
@@ -370,6 +461,17 @@ public class AutoSaveWorldConfig {
 		config.set("crashrestart.scriptpath", crashRestartScriptPath);
 		config.set("crashrestart.timeout", crashRestartTimeout);
 		config.set("crashrestart.juststop", crashRestartJustStop);
+		config.set("crashrestart.shutdown.timeout", crashRestartShutdownTimeout);
+		config.set("crashrestart.shutdown.plugintimeout", crashRestartShutdownPluginTimeout);
+		config.set("crashrestart.shutdown.savethreads", crashRestartShutdownSaveThreads);
+		config.set("crashrestart.stall.threshold", crashRestartStallThreshold);
+		config.set("crashrestart.stall.sampleinterval", crashRestartStallSampleInterval);
+		config.set("crashrestart.profiler.enabled", tickProfilerEnabled);
+		config.set("crashrestart.profiler.spikethreshold", tickProfilerSpikeThreshold);
+		config.set("crashrestart.profiler.sampleinterval", tickProfilerSampleInterval);
+
+		// restart variables
+		config.set("restart.fastrestart", restartFastRestart);
 
 		// autorestart variables
 		config.set("autorestart.enabled", autoRestart);
@@ -380,6 +482,11 @@ public class AutoSaveWorldConfig {
 		config.set("autorestart.commands", autoRestartPreStopCommmands);
 		config.set("autorestart.scriptpath", autoRestartScriptPath);
 		config.set("autorestart.juststop", autoRestartJustStop);
+		config.set("autorestart.drain.enabled", autoRestartDrain);
+		config.set("autorestart.drain.savebatch", autoRestartDrainSaveBatch);
+		config.set("autorestart.drain.fallbackserver", autoRestartDrainFallbackServer);
+		config.set("autorestart.loginratelimit.loginspersecond", autoRestartLoginRateLimit);
+		config.set("autorestart.loginratelimit.duration", autoRestartLoginRateLimitDuration);
 
 		// autoconsolecommand variables
 		config.set("consolecommand.timemode.enabled", ccTimesModeEnabled);
@@ -404,9 +511,26 @@ public class AutoSaveWorldConfig {
 		config.set("worldregen.savegp", worldRegenSaveGP);
 		config.set("worldregen.savetowny", worldregenSaveTowny);
 		config.set("worldregen.savepstones", worldregenSavePStones);
+		config.set("worldregen.regionfiles", worldRegenRegionFiles);
+		config.set("worldregen.tickbudget", worldRegenTickBudget);
+		config.set("worldregen.savethreads", worldRegenSaveThreads);
+		config.set("worldregen.loadthreads", worldRegenLoadThreads);
 
 		// network watcher variables
 		config.set("networkwatcher.warnmainthreadnetwrokaccess", networkWatcher);
+		config.set("networkwatcher.aggregate.enabled", networkWatcherAggregate);
+		config.set("networkwatcher.aggregate.interval", networkWatcherAggregateInterval);
+
+		// blocking watcher variables
+		config.set("blockingwatcher.enabled", blockingWatcher);
+		config.set("blockingwatcher.sampleinterval", blockingWatcherSampleInterval);
+		config.set("blockingwatcher.hooks", blockingWatcherHooks);
+		config.set("blockingwatcher.reportinterval", blockingWatcherReportInterval);
+
+		// process manager variables
+		config.set("processmanager.outputbufferlines", processManagerOutputBufferLines);
+		config.set("processmanager.outputfile.enabled", processManagerOutputToFile);
+		config.set("processmanager.outputfile.maxsize", processManagerOutputFileMaxSize);
 
 		try {
 			config.save(new File(GlobalConstants.getConfigPath()));
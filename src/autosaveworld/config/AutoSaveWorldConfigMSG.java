@@ -36,6 +36,8 @@ public class AutoSaveWorldConfigMSG {
 	public String messagePurgeBroadcastPost = "&9AutoPurge Complete";
 	public String messageAutoRestart = "&9Server is restarting";
 	public String messageAutoRestartCountdown = "&9Server will restart in {SECONDS} seconds";
+	public String messageAutoRestartDrainKick = "&9Server is restarting, please come back in a minute";
+	public String messageAutoRestartLoginRateLimit = "&9Server has just restarted, please try again in a few seconds";
 	public String messageWorldRegenKick = "&9Server is regenerating map, please come back later";
 	public String messageInsufficientPermissions = "&cYou do not have access to that command.";
 
@@ -50,6 +52,8 @@ public class AutoSaveWorldConfigMSG {
 		messageInsufficientPermissions = configfile.getString("insufficentpermissions", messageInsufficientPermissions);
 		messageAutoRestart = configfile.getString("autorestart.restarting", messageAutoRestart);
 		messageAutoRestartCountdown = configfile.getString("autorestart.countdown", messageAutoRestartCountdown);
+		messageAutoRestartDrainKick = configfile.getString("autorestart.drainkick", messageAutoRestartDrainKick);
+		messageAutoRestartLoginRateLimit = configfile.getString("autorestart.loginratelimit", messageAutoRestartLoginRateLimit);
 		messageWorldRegenKick = configfile.getString("worldregen.kickmessage", messageWorldRegenKick);
 		savemsg();
 	}
@@ -65,6 +69,8 @@ public class AutoSaveWorldConfigMSG {
 		configfile.set("insufficentpermissions", messageInsufficientPermissions);
 		configfile.set("autorestart.restarting", messageAutoRestart);
 		configfile.set("autorestart.countdown", messageAutoRestartCountdown);
+		configfile.set("autorestart.drainkick", messageAutoRestartDrainKick);
+		configfile.set("autorestart.loginratelimit", messageAutoRestartLoginRateLimit);
 		configfile.set("worldregen.kickmessage", messageWorldRegenKick);
 		try {
 			configfile.save(new File(GlobalConstants.getConfigMSGPath()));
@@ -17,6 +17,8 @@
 
 package autosaveworld.core;
 
+import java.lang.management.ManagementFactory;
+
 import org.bukkit.plugin.java.JavaPlugin;
 
 import autosaveworld.commands.CommandsHandler;
@@ -25,6 +27,7 @@ import autosaveworld.config.AutoSaveWorldConfig;
 import autosaveworld.config.AutoSaveWorldConfigMSG;
 import autosaveworld.config.LocaleChanger;
 import autosaveworld.core.logging.MessageLogger;
+import autosaveworld.modules.blockingwatcher.BlockingWatcher;
 import autosaveworld.modules.networkwatcher.NetworkWatcher;
 import autosaveworld.modules.pluginmanager.PluginManager;
 import autosaveworld.modules.processmanager.ProcessManager;
@@ -35,6 +38,7 @@ import autosaveworld.threads.consolecommand.AutoConsoleCommandThread;
 import autosaveworld.threads.purge.AutoPurgeThread;
 import autosaveworld.threads.restart.AutoRestartThread;
 import autosaveworld.threads.restart.CrashRestartThread;
+import autosaveworld.threads.restart.LoginRateLimiter;
 import autosaveworld.threads.restart.RestartJVMshutdownhook;
 import autosaveworld.threads.save.AutoSaveThread;
 import autosaveworld.utils.CommandUtils;
@@ -64,6 +68,8 @@ public class AutoSaveWorld extends JavaPlugin {
 	public ProcessManager processmanager;
 	// network watcher
 	public NetworkWatcher watcher;
+	// blocking calls watcher
+	public BlockingWatcher blockingwatcher;
 	// configs
 	public AutoSaveWorldConfigMSG configmsg;
 	public AutoSaveWorldConfig config;
@@ -104,18 +110,35 @@ public class AutoSaveWorld extends JavaPlugin {
 		// Load plugin manager
 		pluginmanager = new PluginManager();
 		// Load process manager
-		processmanager = new ProcessManager();
+		processmanager = new ProcessManager(config);
 		// Load network watcher
 		watcher = new NetworkWatcher(config);
 		watcher.register();
+		// Load blocking calls watcher
+		blockingwatcher = new BlockingWatcher(Thread.currentThread(), config);
+		blockingwatcher.register();
 		// Start Threads
 		startThread(ThreadType.SAVE);
 		startThread(ThreadType.BACKUP);
 		startThread(ThreadType.PURGE);
-		JVMsh = new RestartJVMshutdownhook();
+		JVMsh = new RestartJVMshutdownhook(config.restartFastRestart);
 		startThread(ThreadType.CRASHRESTART);
 		startThread(ThreadType.AUTORESTART);
 		startThread(ThreadType.CONSOLECOMMAND);
+		// log time from jvm start to first tick, only once per jvm
+		if (System.getProperty("autosaveworld.firsttick") == null) {
+			System.setProperty("autosaveworld.firsttick", "true");
+			// limit logins rate right after start, so players that were waiting for restart won't join all at once
+			if (config.autoRestartLoginRateLimit > 0) {
+				ListenerUtils.registerListener(new LoginRateLimiter(configmsg, config.autoRestartLoginRateLimit, config.autoRestartLoginRateLimitDuration));
+			}
+			SchedulerUtils.scheduleSyncTask(new Runnable() {
+				@Override
+				public void run() {
+					MessageLogger.info("Time to first tick: " + (System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()) + " ms");
+				}
+			});
+		}
 		//start worldregen paste if needed
 		WorldRegenPasteThread pasteThread = new WorldRegenPasteThread(this, config, configmsg);
 		if (pasteThread.shouldPaste()) {
@@ -145,9 +168,14 @@ public class AutoSaveWorld extends JavaPlugin {
 		// stop network watcher
 		watcher.unregister();
 		watcher = null;
+		// stop blocking calls watcher
+		blockingwatcher.unregister();
+		blockingwatcher = null;
 		// null some variables
 		pluginmanager = null;
 		processmanager = null;
+		// write remaining debug messages
+		MessageLogger.shutdown();
 		configmsg = null;
 		config = null;
 	}
@@ -184,7 +212,7 @@ public class AutoSaveWorld extends JavaPlugin {
 			}
 			case AUTORESTART: {
 				if ((autorestartThread == null) || !autorestartThread.isAlive()) {
-					autorestartThread = new AutoRestartThread(config, configmsg, JVMsh);
+					autorestartThread = new AutoRestartThread(this, config, configmsg, JVMsh);
 					autorestartThread.start();
 				}
 				return;
@@ -49,14 +49,56 @@ public class GlobalConstants {
 		return getAutoSaveWorldFolder() + configmsgfile;
 	}
 
+	private static String debuglogfile = "debug.log";
+
+	public static String getDebugLogPath() {
+		return getAutoSaveWorldFolder() + debuglogfile;
+	}
+
+	// purge
+	private static String purgejournalfile = "purgejournal.yml";
+
+	public static String getPurgeJournalPath() {
+		return getAutoSaveWorldFolder() + purgejournalfile;
+	}
+
+	// crashrestart
+	private static String lagspikesfolder = "lagspikes" + File.separator;
+
+	public static String getLagSpikesFolder() {
+		return getAutoSaveWorldFolder() + lagspikesfolder;
+	}
+
+	private static String stallreportsfolder = "stallreports" + File.separator;
+
+	public static String getStallReportsFolder() {
+		return getAutoSaveWorldFolder() + stallreportsfolder;
+	}
+
+	// restart
+	private static String cdsarchivefile = "restart.jsa";
+
+	public static String getClassDataSharingArchivePath() {
+		return getAutoSaveWorldFolder() + cdsarchivefile;
+	}
+
+	// processmanager
+	private static String processesoutputfolder = "processes" + File.separator;
+
+	public static String getProcessesOutputFolder() {
+		return getAutoSaveWorldFolder() + processesoutputfolder;
+	}
+
 	// worldregen
 	private static String worldregentempfolder = "WorldRegenTemp" + File.separator;
 	private static String worldnamefile = "wname.yml";
+	private static String pastejournalfile = "pastejournal.txt";
 	private static String wgtempfolder = "WG" + File.separator;
 	private static String factionstempfolder = "Factions" + File.separator;
 	private static String griefpreventiontempfolder = "GP" + File.separator;
 	private static String townytempfolder = "Towny" + File.separator;
 	private static String pstonestempfolder = "PStones" + File.separator;
+	private static String structurestempfolder = "Structures" + File.separator;
 
 	public static String getWorldRegenTempFolder() {
 		return getAutoSaveWorldFolder() + worldregentempfolder;
@@ -66,6 +108,10 @@ public class GlobalConstants {
 		return getWorldRegenTempFolder() + worldnamefile;
 	}
 
+	public static String getPasteJournalFile() {
+		return getWorldRegenTempFolder() + pastejournalfile;
+	}
+
 	public static String getWGTempFolder() {
 		return getWorldRegenTempFolder() + wgtempfolder;
 	}
@@ -86,4 +132,8 @@ public class GlobalConstants {
 		return getWorldRegenTempFolder() + pstonestempfolder;
 	}
 
+	public static String getStructuresTempFolder() {
+		return getWorldRegenTempFolder() + structurestempfolder;
+	}
+
 }
@@ -0,0 +1,189 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.core.logging;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+// Writes debug messages to console and file from background thread, so callers never wait for io
+// Messages are dropped when queue is full instead of blocking callers
+public class AsyncLogWriter extends Thread {
+
+	private static final int MAX_BATCH_SIZE = 256;
+
+	private final Logger log;
+	private final File file;
+	private final int capacity;
+
+	private final ConcurrentLinkedQueue<LogEntry> queue = new ConcurrentLinkedQueue<LogEntry>();
+	private final AtomicInteger queuesize = new AtomicInteger();
+	private final AtomicLong dropped = new AtomicLong();
+
+	private volatile boolean run = true;
+
+	public AsyncLogWriter(Logger log, File file, int capacity) {
+		this.log = log;
+		this.file = file;
+		this.capacity = capacity;
+		setName("AutoSaveWorld AsyncLogWriter");
+		setDaemon(true);
+	}
+
+	public void log(LogEntry entry) {
+		if (queuesize.incrementAndGet() > capacity) {
+			queuesize.decrementAndGet();
+			dropped.incrementAndGet();
+			return;
+		}
+		queue.add(entry);
+	}
+
+	// stops writer after all queued messages are written
+	public void stopWriter() {
+		run = false;
+		LockSupport.unpark(this);
+		try {
+			join(5000);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	@Override
+	public void run() {
+		BufferedWriter writer = null;
+		if (file != null) {
+			try {
+				file.getParentFile().mkdirs();
+				writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		SimpleDateFormat dateformat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+		StringBuilder batch = new StringBuilder();
+		while (true) {
+			boolean stopping = !run;
+			int written = 0;
+			LogEntry entry;
+			while ((written < MAX_BATCH_SIZE) && ((entry = queue.poll()) != null)) {
+				queuesize.decrementAndGet();
+				String formatted = entry.format();
+				if (batch.length() != 0) {
+					batch.append(System.lineSeparator());
+				}
+				batch.append(formatted);
+				if (writer != null) {
+					try {
+						writer.write(dateformat.format(entry.getTime()));
+						writer.write(" [");
+						writer.write(entry.getThreadName());
+						writer.write("] ");
+						writer.write(formatted);
+						writer.newLine();
+					} catch (IOException e) {
+					}
+				}
+				written++;
+			}
+			long droppedcount = dropped.getAndSet(0);
+			if (droppedcount > 0) {
+				if (batch.length() != 0) {
+					batch.append(System.lineSeparator());
+				}
+				batch.append("Dropped " + droppedcount + " debug messages because logger can't keep up");
+			}
+			// whole batch goes to console as one record
+			if (batch.length() != 0) {
+				log.info(batch.toString());
+				batch.setLength(0);
+			}
+			if (writer != null) {
+				try {
+					writer.flush();
+				} catch (IOException e) {
+				}
+			}
+			if (written == MAX_BATCH_SIZE) {
+				continue;
+			}
+			if (stopping) {
+				break;
+			}
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+		}
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	public static class LogEntry {
+
+		private final long time = System.currentTimeMillis();
+		private final String threadname = Thread.currentThread().getName();
+		private final String subsystem;
+		private final String world;
+		private final long duration;
+		private final String message;
+
+		public LogEntry(String subsystem, String world, long duration, String message) {
+			this.subsystem = subsystem;
+			this.world = world;
+			this.duration = duration;
+			this.message = message;
+		}
+
+		public long getTime() {
+			return time;
+		}
+
+		public String getThreadName() {
+			return threadname;
+		}
+
+		public String format() {
+			StringBuilder sb = new StringBuilder();
+			if (subsystem != null) {
+				sb.append('[').append(subsystem).append("] ");
+			}
+			if (world != null) {
+				sb.append('[').append(world).append("] ");
+			}
+			sb.append(message);
+			if (duration >= 0) {
+				sb.append(" (").append(duration).append(" ms)");
+			}
+			return sb.toString();
+		}
+
+	}
+
+}
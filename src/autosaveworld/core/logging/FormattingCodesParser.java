@@ -17,58 +17,103 @@
 
 package autosaveworld.core.logging;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.bukkit.ChatColor;
 
 public class FormattingCodesParser {
 
+	private static final char CODE_CHAR = '&';
+	private static final char HEX_CHAR = '#';
+
+	// maps format code char to chat color char, 0 means that char is not a format code
+	private static final char[] CODES = new char[128];
+	static {
+		for (char c : "0123456789abcdefklmnor".toCharArray()) {
+			CODES[c] = c;
+			CODES[Character.toUpperCase(c)] = c;
+		}
+	}
+
+	// messages are mostly the same configmsg templates, so recently parsed messages are cached
+	// least recently used messages are evicted, so one-off messages won't keep templates out of cache
+	private static final int MAX_CACHED_MESSAGES = 64;
+	private final LinkedHashMap<String, String> parsedCache = new LinkedHashMap<String, String>(MAX_CACHED_MESSAGES * 2, 0.75F, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_CACHED_MESSAGES;
+		}
+	};
+
 	public String parseFormattingCodes(String message) {
-		message = message.replaceAll("&0", ChatColor.BLACK + "");
-		message = message.replaceAll("&1", ChatColor.DARK_BLUE + "");
-		message = message.replaceAll("&2", ChatColor.DARK_GREEN + "");
-		message = message.replaceAll("&3", ChatColor.DARK_AQUA + "");
-		message = message.replaceAll("&4", ChatColor.DARK_RED + "");
-		message = message.replaceAll("&5", ChatColor.DARK_PURPLE + "");
-		message = message.replaceAll("&6", ChatColor.GOLD + "");
-		message = message.replaceAll("&7", ChatColor.GRAY + "");
-		message = message.replaceAll("&8", ChatColor.DARK_GRAY + "");
-		message = message.replaceAll("&9", ChatColor.BLUE + "");
-		message = message.replaceAll("(?i)&a", ChatColor.GREEN + "");
-		message = message.replaceAll("(?i)&b", ChatColor.AQUA + "");
-		message = message.replaceAll("(?i)&c", ChatColor.RED + "");
-		message = message.replaceAll("(?i)&d", ChatColor.LIGHT_PURPLE + "");
-		message = message.replaceAll("(?i)&e", ChatColor.YELLOW + "");
-		message = message.replaceAll("(?i)&f", ChatColor.WHITE + "");
-		message = message.replaceAll("(?i)&l", ChatColor.BOLD + "");
-		message = message.replaceAll("(?i)&o", ChatColor.ITALIC + "");
-		message = message.replaceAll("(?i)&m", ChatColor.STRIKETHROUGH + "");
-		message = message.replaceAll("(?i)&n", ChatColor.UNDERLINE + "");
-		message = message.replaceAll("(?i)&k", ChatColor.MAGIC + "");
-		return message;
+		if (message.indexOf(CODE_CHAR) == -1) {
+			return message;
+		}
+		String parsed;
+		synchronized (parsedCache) {
+			parsed = parsedCache.get(message);
+		}
+		if (parsed == null) {
+			parsed = process(message, true);
+			synchronized (parsedCache) {
+				parsedCache.put(message, parsed);
+			}
+		}
+		return parsed;
 	}
 
 	public String stripFormattingCodes(String message) {
-		message = message.replaceAll("&0", "");
-		message = message.replaceAll("&1", "");
-		message = message.replaceAll("&2", "");
-		message = message.replaceAll("&3", "");
-		message = message.replaceAll("&4", "");
-		message = message.replaceAll("&5", "");
-		message = message.replaceAll("&6", "");
-		message = message.replaceAll("&7", "");
-		message = message.replaceAll("&8", "");
-		message = message.replaceAll("&9", "");
-		message = message.replaceAll("(?i)&a", "");
-		message = message.replaceAll("(?i)&b", "");
-		message = message.replaceAll("(?i)&c", "");
-		message = message.replaceAll("(?i)&d", "");
-		message = message.replaceAll("(?i)&e", "");
-		message = message.replaceAll("(?i)&f", "");
-		message = message.replaceAll("(?i)&l", "");
-		message = message.replaceAll("(?i)&o", "");
-		message = message.replaceAll("(?i)&m", "");
-		message = message.replaceAll("(?i)&n", "");
-		message = message.replaceAll("(?i)&k", "");
-		return message;
+		if (message.indexOf(CODE_CHAR) == -1) {
+			return message;
+		}
+		return process(message, false);
+	}
+
+	// replaces (or removes) &code and &#rrggbb sequences in one pass
+	private static String process(String message, boolean replace) {
+		int length = message.length();
+		StringBuilder result = new StringBuilder(replace ? length + 16 : length);
+		for (int i = 0; i < length; i++) {
+			char c = message.charAt(i);
+			if ((c == CODE_CHAR) && (i + 1 < length)) {
+				char next = message.charAt(i + 1);
+				if ((next < CODES.length) && (CODES[next] != 0)) {
+					if (replace) {
+						result.append(ChatColor.COLOR_CHAR).append(CODES[next]);
+					}
+					i++;
+					continue;
+				}
+				if ((next == HEX_CHAR) && isHexColor(message, i + 2)) {
+					// hex color is sent as x code followed by codes of each hex digit
+					if (replace) {
+						result.append(ChatColor.COLOR_CHAR).append('x');
+						for (int j = i + 2; j < i + 8; j++) {
+							result.append(ChatColor.COLOR_CHAR).append(Character.toLowerCase(message.charAt(j)));
+						}
+					}
+					i += 7;
+					continue;
+				}
+			}
+			result.append(c);
+		}
+		return result.toString();
+	}
+
+	private static boolean isHexColor(String message, int start) {
+		if (start + 6 > message.length()) {
+			return false;
+		}
+		for (int i = start; i < start + 6; i++) {
+			char c = message.charAt(i);
+			if (!(((c >= '0') && (c <= '9')) || ((c >= 'a') && (c <= 'f')) || ((c >= 'A') && (c <= 'F')))) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 }
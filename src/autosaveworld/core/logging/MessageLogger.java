@@ -17,6 +17,7 @@
 
 package autosaveworld.core.logging;
 
+import java.io.File;
 import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
@@ -26,6 +27,8 @@ import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 
 import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.core.GlobalConstants;
+import autosaveworld.core.logging.AsyncLogWriter.LogEntry;
 
 public class MessageLogger {
 
@@ -33,9 +36,23 @@ public class MessageLogger {
 	private static Logger log;
 	private static FormattingCodesParser formattingCodesParser = new FormattingCodesParser();
 
+	private static AsyncLogWriter asyncLogWriter;
+
 	public static void init(Logger log, AutoSaveWorldConfig config) {
 		MessageLogger.log = log;
 		MessageLogger.config = config;
+		if (config.varDebugAsync) {
+			asyncLogWriter = new AsyncLogWriter(log, config.varDebugFile ? new File(GlobalConstants.getDebugLogPath()) : null, config.varDebugQueueSize);
+			asyncLogWriter.start();
+		}
+	}
+
+	// writes remaining debug messages and stops async writer
+	public static void shutdown() {
+		if (asyncLogWriter != null) {
+			asyncLogWriter.stopWriter();
+			asyncLogWriter = null;
+		}
 	}
 
 	public static void sendMessage(CommandSender sender, String message) {
@@ -76,7 +93,30 @@ public class MessageLogger {
 	}
 
 	public static void debug(String message) {
+		debug(null, null, -1, message);
+	}
+
+	public static void debug(String subsystem, String message) {
+		debug(subsystem, null, -1, message);
+	}
+
+	// duration is in milliseconds, -1 means no duration
+	public static void debug(String subsystem, String world, long duration, String message) {
 		if ((config != null) && config.varDebug) {
+			if (formattingCodesParser != null) {
+				LogEntry entry = new LogEntry(subsystem, world, duration, formattingCodesParser.stripFormattingCodes(message));
+				AsyncLogWriter writer = asyncLogWriter;
+				if (writer != null) {
+					writer.log(entry);
+				} else {
+					log.info(entry.format());
+				}
+			}
+		}
+	}
+
+	public static void info(String message) {
+		if (log != null) {
 			if (formattingCodesParser != null) {
 				log.info(formattingCodesParser.stripFormattingCodes(message));
 			}
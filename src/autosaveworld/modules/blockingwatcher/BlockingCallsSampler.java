@@ -0,0 +1,87 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.blockingwatcher;
+
+// Samples main thread and accounts sample interval to plugin if main thread is inside blocking call
+public class BlockingCallsSampler extends Thread {
+
+	private final Thread bukkitMainThread;
+	private final long interval;
+	private final PluginResolver resolver;
+	private final BlockingCallsStats stats;
+
+	private volatile boolean run = true;
+
+	public BlockingCallsSampler(Thread bukkitMainThread, long interval, PluginResolver resolver, BlockingCallsStats stats) {
+		this.bukkitMainThread = bukkitMainThread;
+		this.interval = interval;
+		this.resolver = resolver;
+		this.stats = stats;
+		setDaemon(true);
+	}
+
+	public void stopSampling() {
+		run = false;
+		try {
+			join(1000);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	@Override
+	public void run() {
+		Thread.currentThread().setName("AutoSaveWorld BlockingCallsSampler");
+		long lastsample = System.currentTimeMillis();
+		while (run) {
+			StackTraceElement[] stack = bukkitMainThread.getStackTrace();
+			long now = System.currentTimeMillis();
+			String type = getBlockingCallType(stack);
+			if (type != null) {
+				stats.addBlockedTime(resolver.getPluginName(stack), type, now - lastsample);
+			}
+			lastsample = now;
+			try {
+				Thread.sleep(interval);
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	// checks top frames of the stack to find out if thread is waiting for io
+	private static String getBlockingCallType(StackTraceElement[] stack) {
+		int depth = Math.min(stack.length, 16);
+		for (int i = 0; i < depth; i++) {
+			String classname = stack[i].getClassName();
+			String method = stack[i].getMethodName();
+			if (classname.startsWith("java.net.Inet") && (method.startsWith("lookup") || method.startsWith("getAddresses") || method.startsWith("getHostBy"))) {
+				return "dns";
+			}
+			if ((classname.startsWith("java.net.") && classname.contains("Socket")) || classname.startsWith("sun.nio.ch.Socket") || classname.startsWith("sun.net.")) {
+				return "network";
+			}
+			if (classname.startsWith("java.sql.") || classname.startsWith("com.mysql.") || classname.startsWith("org.sqlite.") || classname.startsWith("org.h2.") || classname.startsWith("org.postgresql.")) {
+				return "database";
+			}
+			if (classname.startsWith("java.io.File") || classname.startsWith("java.io.RandomAccessFile") || classname.startsWith("java.io.UnixFileSystem") || classname.startsWith("java.io.WinNTFileSystem") || classname.startsWith("sun.nio.ch.FileChannelImpl") || classname.startsWith("sun.nio.fs.")) {
+				return "file";
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,126 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.blockingwatcher;
+
+import java.io.FileDescriptor;
+import java.security.Permission;
+
+import org.bukkit.Bukkit;
+
+// Security manager is the only place where jvm reports socket connects, dns lookups and file opens, so it is used as a hook
+// All permissions are granted unless previously installed security manager denies them
+public class BlockingCallsSecurityManager extends SecurityManager {
+
+	private final SecurityManager previous;
+	private final PluginResolver resolver;
+	private final BlockingCallsStats stats;
+
+	public BlockingCallsSecurityManager(SecurityManager previous, PluginResolver resolver, BlockingCallsStats stats) {
+		this.previous = previous;
+		this.resolver = resolver;
+		this.stats = stats;
+	}
+
+	public SecurityManager getPreviousSecurityManager() {
+		return previous;
+	}
+
+	// plugins lookup itself can load classes and open files, so nested calls are not counted
+	private boolean counting = false;
+
+	private void countCall(String type) {
+		if (Bukkit.isPrimaryThread() && !counting) {
+			counting = true;
+			try {
+				stats.addCall(resolver.getPluginName(getClassContext()), type);
+			} finally {
+				counting = false;
+			}
+		}
+	}
+
+	@Override
+	public void checkConnect(String host, int port) {
+		// port -1 means host name resolution
+		countCall(port == -1 ? "dns" : "network");
+		if (previous != null) {
+			previous.checkConnect(host, port);
+		}
+	}
+
+	@Override
+	public void checkConnect(String host, int port, Object context) {
+		countCall(port == -1 ? "dns" : "network");
+		if (previous != null) {
+			previous.checkConnect(host, port, context);
+		}
+	}
+
+	@Override
+	public void checkRead(String file) {
+		countCall("file");
+		if (previous != null) {
+			previous.checkRead(file);
+		}
+	}
+
+	@Override
+	public void checkRead(String file, Object context) {
+		countCall("file");
+		if (previous != null) {
+			previous.checkRead(file, context);
+		}
+	}
+
+	@Override
+	public void checkWrite(String file) {
+		countCall("file");
+		if (previous != null) {
+			previous.checkWrite(file);
+		}
+	}
+
+	@Override
+	public void checkRead(FileDescriptor fd) {
+		if (previous != null) {
+			previous.checkRead(fd);
+		}
+	}
+
+	@Override
+	public void checkWrite(FileDescriptor fd) {
+		if (previous != null) {
+			previous.checkWrite(fd);
+		}
+	}
+
+	@Override
+	public void checkPermission(Permission perm) {
+		if (previous != null) {
+			previous.checkPermission(perm);
+		}
+	}
+
+	@Override
+	public void checkPermission(Permission perm, Object context) {
+		if (previous != null) {
+			previous.checkPermission(perm, context);
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.blockingwatcher;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Counts time spent in blocking calls and amount of blocking calls per plugin and call type
+public class BlockingCallsStats {
+
+	private final ConcurrentHashMap<String, AtomicLong> blockedtime = new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentHashMap<String, AtomicLong> calls = new ConcurrentHashMap<String, AtomicLong>();
+
+	public void addBlockedTime(String plugin, String type, long millis) {
+		get(blockedtime, plugin + " " + type).addAndGet(millis);
+	}
+
+	public void addCall(String plugin, String type) {
+		get(calls, plugin + " " + type).incrementAndGet();
+	}
+
+	private static AtomicLong get(ConcurrentHashMap<String, AtomicLong> map, String key) {
+		AtomicLong value = map.get(key);
+		if (value == null) {
+			AtomicLong newvalue = new AtomicLong();
+			value = map.putIfAbsent(key, newvalue);
+			if (value == null) {
+				value = newvalue;
+			}
+		}
+		return value;
+	}
+
+	// returns report lines ranked by blocked time and calls count and resets stats
+	public List<String> buildReport() {
+		ArrayList<String> report = new ArrayList<String>();
+		List<Entry<String, Long>> blockedtimeranked = drainRanked(blockedtime);
+		if (!blockedtimeranked.isEmpty()) {
+			report.add("Main thread blocked time (sampled):");
+			for (Entry<String, Long> entry : blockedtimeranked) {
+				report.add(entry.getKey() + ": " + entry.getValue() + " ms");
+			}
+		}
+		List<Entry<String, Long>> callsranked = drainRanked(calls);
+		if (!callsranked.isEmpty()) {
+			report.add("Main thread blocking calls:");
+			for (Entry<String, Long> entry : callsranked) {
+				report.add(entry.getKey() + ": " + entry.getValue());
+			}
+		}
+		return report;
+	}
+
+	private static List<Entry<String, Long>> drainRanked(ConcurrentHashMap<String, AtomicLong> map) {
+		ArrayList<Entry<String, Long>> entries = new ArrayList<Entry<String, Long>>();
+		for (String key : map.keySet()) {
+			AtomicLong value = map.remove(key);
+			if (value != null) {
+				entries.add(new SimpleEntry<String, Long>(key, value.get()));
+			}
+		}
+		Collections.sort(entries, new Comparator<Entry<String, Long>>() {
+			@Override
+			public int compare(Entry<String, Long> o1, Entry<String, Long> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+		return entries;
+	}
+
+}
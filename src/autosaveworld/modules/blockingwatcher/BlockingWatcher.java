@@ -0,0 +1,107 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.blockingwatcher;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+
+import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.core.logging.MessageLogger;
+import autosaveworld.utils.ListenerUtils;
+import autosaveworld.utils.SchedulerUtils;
+
+// Finds out which plugins block main thread with file, database, dns and network calls
+public class BlockingWatcher implements Listener {
+
+	private Thread bukkitMainThread;
+	private AutoSaveWorldConfig config;
+
+	public BlockingWatcher(Thread bukkitMainThread, AutoSaveWorldConfig config) {
+		this.bukkitMainThread = bukkitMainThread;
+		this.config = config;
+	}
+
+	private final PluginResolver resolver = new PluginResolver();
+	private final BlockingCallsStats stats = new BlockingCallsStats();
+	private BlockingCallsSampler sampler;
+	private BlockingCallsSecurityManager securitymanager;
+
+	public void register() {
+		if (!config.blockingWatcher) {
+			return;
+		}
+		ListenerUtils.registerListener(this);
+		sampler = new BlockingCallsSampler(bukkitMainThread, config.blockingWatcherSampleInterval, resolver, stats);
+		sampler.start();
+		if (config.blockingWatcherHooks) {
+			try {
+				securitymanager = new BlockingCallsSecurityManager(System.getSecurityManager(), resolver, stats);
+				System.setSecurityManager(securitymanager);
+			} catch (SecurityException | UnsupportedOperationException e) {
+				// java 18+ doesn't allow installing security manager unless started with -Djava.security.manager=allow
+				MessageLogger.warn("Unable to install blocking calls hooks, only sampling will be used");
+				securitymanager = null;
+			}
+		}
+		int interval = config.blockingWatcherReportInterval * 20;
+		SchedulerUtils.scheduleSyncRepeatingTask(new Runnable() {
+			@Override
+			public void run() {
+				if (sampler != null) {
+					report();
+				}
+			}
+		}, interval, interval);
+	}
+
+	public void unregister() {
+		if (sampler == null) {
+			return;
+		}
+		ListenerUtils.unregisterListener(this);
+		if ((securitymanager != null) && (System.getSecurityManager() == securitymanager)) {
+			try {
+				System.setSecurityManager(securitymanager.getPreviousSecurityManager());
+			} catch (SecurityException e) {
+			}
+		}
+		securitymanager = null;
+		sampler.stopSampling();
+		sampler = null;
+		report();
+	}
+
+	private void report() {
+		for (String line : stats.buildReport()) {
+			MessageLogger.warn(line);
+		}
+	}
+
+	@EventHandler
+	public void onPluginEnable(PluginEnableEvent e) {
+		resolver.invalidate();
+	}
+
+	@EventHandler
+	public void onPluginDisable(PluginDisableEvent e) {
+		resolver.invalidate();
+	}
+
+}
@@ -0,0 +1,92 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.blockingwatcher;
+
+import java.util.HashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+// Resolves plugin by classloader, cache is rebuilt when plugins list changes
+public class PluginResolver {
+
+	public static final String UNKNOWN = "Unknown";
+
+	private volatile HashMap<ClassLoader, String> classloaderToPlugin;
+
+	public void invalidate() {
+		classloaderToPlugin = null;
+	}
+
+	public String getPluginName(Class<?>[] stack) {
+		HashMap<ClassLoader, String> map = getClassloaderToPluginMap();
+		for (Class<?> clazz : stack) {
+			String plugin = map.get(clazz.getClassLoader());
+			if (plugin != null) {
+				return plugin;
+			}
+		}
+		return UNKNOWN;
+	}
+
+	public String getPluginName(StackTraceElement[] stack) {
+		HashMap<ClassLoader, String> map = getClassloaderToPluginMap();
+		for (StackTraceElement element : stack) {
+			String plugin = map.get(getClassLoader(element.getClassName()));
+			if (plugin != null) {
+				return plugin;
+			}
+		}
+		return UNKNOWN;
+	}
+
+	// only used by sampler thread, so it is not synchronized, map is replaced when plugins list changes
+	private volatile HashMap<String, ClassLoader> classNameToLoader = new HashMap<String, ClassLoader>();
+
+	private ClassLoader getClassLoader(String classname) {
+		HashMap<String, ClassLoader> classNameToLoader = this.classNameToLoader;
+		if (classNameToLoader.containsKey(classname)) {
+			return classNameToLoader.get(classname);
+		}
+		ClassLoader loader = null;
+		for (ClassLoader pluginloader : getClassloaderToPluginMap().keySet()) {
+			try {
+				loader = Class.forName(classname, false, pluginloader).getClassLoader();
+				break;
+			} catch (Throwable t) {
+			}
+		}
+		classNameToLoader.put(classname, loader);
+		return loader;
+	}
+
+	private HashMap<ClassLoader, String> getClassloaderToPluginMap() {
+		HashMap<ClassLoader, String> map = classloaderToPlugin;
+		if (map == null) {
+			map = new HashMap<ClassLoader, String>();
+			for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+				map.put(plugin.getClass().getClassLoader(), plugin.getName());
+			}
+			map.remove(getClass().getClassLoader());
+			classNameToLoader = new HashMap<String, ClassLoader>();
+			classloaderToPlugin = map;
+		}
+		return map;
+	}
+
+}
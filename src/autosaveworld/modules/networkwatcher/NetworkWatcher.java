@@ -20,6 +20,8 @@ package autosaveworld.modules.networkwatcher;
 import java.net.ProxySelector;
 
 import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.utils.ListenerUtils;
+import autosaveworld.utils.SchedulerUtils;
 
 public class NetworkWatcher {
 
@@ -29,8 +31,24 @@ public class NetworkWatcher {
 		this.config = config;
 	}
 
+	private NetworkWatcherProxySelector selector;
+
 	public void register() {
-		ProxySelector.setDefault(new NetworkWatcherProxySelector(ProxySelector.getDefault(), config));
+		selector = new NetworkWatcherProxySelector(ProxySelector.getDefault(), config);
+		ProxySelector.setDefault(selector);
+		// plugins list is cached by selector, so it should know when it changes
+		ListenerUtils.registerListener(selector);
+		if (config.networkWatcherAggregate) {
+			int interval = config.networkWatcherAggregateInterval * 20;
+			SchedulerUtils.scheduleSyncRepeatingTask(new Runnable() {
+				@Override
+				public void run() {
+					if (selector != null) {
+						selector.reportAccesses();
+					}
+				}
+			}, interval, interval);
+		}
 	}
 
 	public void unregister() {
@@ -38,6 +56,11 @@ public class NetworkWatcher {
 		if (cur instanceof NetworkWatcherProxySelector) {
 			ProxySelector.setDefault(((NetworkWatcherProxySelector) cur).getDefaultSelector());
 		}
+		if (selector != null) {
+			ListenerUtils.unregisterListener(selector);
+			selector.reportAccesses();
+			selector = null;
+		}
 	}
 
 }
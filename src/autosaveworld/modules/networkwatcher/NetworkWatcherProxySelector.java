@@ -22,16 +22,27 @@ import java.net.Proxy;
 import java.net.ProxySelector;
 import java.net.SocketAddress;
 import java.net.URI;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.plugin.Plugin;
 
 import autosaveworld.config.AutoSaveWorldConfig;
 import autosaveworld.core.logging.MessageLogger;
 
-public class NetworkWatcherProxySelector extends ProxySelector {
+public class NetworkWatcherProxySelector extends ProxySelector implements Listener {
 
 	private AutoSaveWorldConfig config;
 	private ProxySelector defaultSelector;
@@ -50,7 +61,9 @@ public class NetworkWatcherProxySelector extends ProxySelector {
 		if (config.networkWatcher) {
 			if (Bukkit.isPrimaryThread()) {
 				Plugin plugin = getRequestingPlugin();
-				if (plugin != null) {
+				if (config.networkWatcherAggregate) {
+					countAccess((plugin != null ? plugin.getName() : "Unknown") + " -> " + uri.getHost());
+				} else if (plugin != null) {
 					MessageLogger.warn("Plugin " + plugin.getName() + " attempted to establish connection " + uri + " in main server thread");
 				} else {
 					MessageLogger.warn("Something attempted to access " + uri + " in main server thread, printing stack trace");
@@ -66,29 +79,89 @@ public class NetworkWatcherProxySelector extends ProxySelector {
 		defaultSelector.connectFailed(uri, sa, ioe);
 	}
 
+	private final ConcurrentHashMap<String, AtomicInteger> accesses = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private void countAccess(String key) {
+		AtomicInteger count = accesses.get(key);
+		if (count == null) {
+			AtomicInteger newcount = new AtomicInteger();
+			count = accesses.putIfAbsent(key, newcount);
+			if (count == null) {
+				count = newcount;
+			}
+		}
+		count.incrementAndGet();
+	}
+
+	// prints main thread network accesses counted since last report
+	public void reportAccesses() {
+		ArrayList<Entry<String, Integer>> counts = new ArrayList<Entry<String, Integer>>();
+		for (String key : accesses.keySet()) {
+			AtomicInteger count = accesses.remove(key);
+			if (count != null) {
+				counts.add(new SimpleEntry<String, Integer>(key, count.get()));
+			}
+		}
+		if (counts.isEmpty()) {
+			return;
+		}
+		Collections.sort(counts, new Comparator<Entry<String, Integer>>() {
+			@Override
+			public int compare(Entry<String, Integer> o1, Entry<String, Integer> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+		MessageLogger.warn("Main server thread network accesses in last " + config.networkWatcherAggregateInterval + " seconds:");
+		for (Entry<String, Integer> count : counts) {
+			MessageLogger.warn(count.getKey() + ": " + count.getValue());
+		}
+	}
+
 	private Plugin getRequestingPlugin() {
 		HashMap<ClassLoader, Plugin> map = getClassloaderToPluginMap();
-		StackTraceElement[] stacktrace = new Exception().getStackTrace();
-		for (int i = 0; i < stacktrace.length; i++) {
-			StackTraceElement element = stacktrace[i];
-			try {
-				ClassLoader loader = Class.forName(element.getClassName(), false, getClass().getClassLoader()).getClassLoader();
-				if (map.containsKey(loader)) {
-					return map.get(loader);
-				}
-			} catch (ClassNotFoundException e) {
+		for (Class<?> clazz : StackClassesResolver.INSTANCE.getStackClasses()) {
+			Plugin plugin = map.get(clazz.getClassLoader());
+			if (plugin != null) {
+				return plugin;
 			}
 		}
 		return null;
 	}
 
+	private volatile HashMap<ClassLoader, Plugin> classloaderToPlugin;
+
+	@EventHandler
+	public void onPluginEnable(PluginEnableEvent e) {
+		classloaderToPlugin = null;
+	}
+
+	@EventHandler
+	public void onPluginDisable(PluginDisableEvent e) {
+		classloaderToPlugin = null;
+	}
+
 	private HashMap<ClassLoader, Plugin> getClassloaderToPluginMap() {
-		HashMap<ClassLoader, Plugin> map = new HashMap<ClassLoader, Plugin>();
-		for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
-			map.put(plugin.getClass().getClassLoader(), plugin);
+		HashMap<ClassLoader, Plugin> map = classloaderToPlugin;
+		if (map == null) {
+			map = new HashMap<ClassLoader, Plugin>();
+			for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
+				map.put(plugin.getClass().getClassLoader(), plugin);
+			}
+			map.remove(getClass().getClassLoader());
+			classloaderToPlugin = map;
 		}
-		map.remove(getClass().getClassLoader());
 		return map;
 	}
 
+	// security manager already has classes of current stack, so we don't need to resolve them by name
+	private static class StackClassesResolver extends SecurityManager {
+
+		private static final StackClassesResolver INSTANCE = new StackClassesResolver();
+
+		public Class<?>[] getStackClasses() {
+			return getClassContext();
+		}
+
+	}
+
 }
@@ -0,0 +1,65 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.processmanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps only latest process output lines, oldest lines are dropped when buffer is full
+public class OutputRingBuffer {
+
+	private final String[] lines;
+	private int head = 0;
+	private int size = 0;
+	private long dropped = 0;
+
+	public OutputRingBuffer(int capacity) {
+		lines = new String[Math.max(1, capacity)];
+	}
+
+	public synchronized void add(String line) {
+		lines[(head + size) % lines.length] = line;
+		if (size == lines.length) {
+			head = (head + 1) % lines.length;
+			dropped++;
+		} else {
+			size++;
+		}
+	}
+
+	// returns buffered lines and clears buffer
+	public synchronized List<String> drain() {
+		ArrayList<String> drained = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			int index = (head + i) % lines.length;
+			drained.add(lines[index]);
+			lines[index] = null;
+		}
+		head = 0;
+		size = 0;
+		return drained;
+	}
+
+	// returns amount of lines dropped since last call
+	public synchronized long resetDropped() {
+		long result = dropped;
+		dropped = 0;
+		return result;
+	}
+
+}
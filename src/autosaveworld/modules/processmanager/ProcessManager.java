@@ -17,13 +17,36 @@
 
 package autosaveworld.modules.processmanager;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 import org.bukkit.command.CommandSender;
 
+import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.core.GlobalConstants;
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.utils.StringUtils;
 
 public class ProcessManager {
 
+	private AutoSaveWorldConfig config;
+
+	public ProcessManager(AutoSaveWorldConfig config) {
+		this.config = config;
+	}
+
+	// output readers are shared by all processes, so finished processes don't leave idle threads
+	private ExecutorService readers = Executors.newCachedThreadPool(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "AutoSaveWorld ProcessOutputReader");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	public void handleProcessManagerCommand(CommandSender sender, String command, String processname, String[] args) {
 		if (command.equalsIgnoreCase("start")) {
 			runProcess(sender, processname, args);
@@ -54,9 +77,13 @@ public class ProcessManager {
 			sender.sendMessage("No process args detected");
 			return;
 		}
-		RunningProcess process = new RunningProcess(args);
+		RollingOutputFile outputfile = null;
+		if (config.processManagerOutputToFile) {
+			outputfile = new RollingOutputFile(new File(GlobalConstants.getProcessesOutputFolder(), prname + ".log"), config.processManagerOutputFileMaxSize * 1024L);
+		}
+		RunningProcess process = new RunningProcess(args, config.processManagerOutputBufferLines, outputfile);
 		storage.registerProcess(prname, process);
-		process.start(sender);
+		process.start(sender, readers);
 	}
 
 	private void printProcessOutput(CommandSender sender, String processname) {
@@ -96,7 +123,7 @@ public class ProcessManager {
 	private void listProcesses(CommandSender sender) {
 		sender.sendMessage("Registered processes:");
 		for (String processname : storage.getRegisteredProcesses()) {
-			sender.sendMessage(processname);
+			sender.sendMessage(processname + " (" + storage.getProcess(processname).getStatus() + ")");
 		}
 	}
 
@@ -0,0 +1,83 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.processmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import autosaveworld.utils.ReflectionUtils;
+
+// Reads process cpu time and memory usage from procfs, only works on linux
+public class ProcessStats {
+
+	private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+	// returns process pid or -1 if it is not available
+	public static int getPid(Process process) {
+		// java 9+ has public pid method, private field can't be accessed there since java 16
+		try {
+			return ((Long) Process.class.getMethod("pid").invoke(process)).intValue();
+		} catch (Throwable t) {
+		}
+		// java 7 and 8 only have pid field in unix process implementation
+		try {
+			return ReflectionUtils.getField(process.getClass(), "pid").getInt(process);
+		} catch (Throwable t) {
+			return -1;
+		}
+	}
+
+	// returns cpu time in milliseconds or -1 if it is not available
+	public static long getCpuTime(int pid) {
+		if (pid < 0) {
+			return -1;
+		}
+		try {
+			String stat = readFile(new File("/proc/" + pid + "/stat"));
+			// process name can contain spaces, so fields are counted from the closing bracket
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+			return (ticks * 1000) / CLOCK_TICKS_PER_SECOND;
+		} catch (Throwable t) {
+			return -1;
+		}
+	}
+
+	// returns resident memory in kilobytes or -1 if it is not available
+	public static long getResidentMemory(int pid) {
+		if (pid < 0) {
+			return -1;
+		}
+		try {
+			for (String line : readFile(new File("/proc/" + pid + "/status")).split("\n")) {
+				if (line.startsWith("VmRSS:")) {
+					return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+				}
+			}
+		} catch (Throwable t) {
+		}
+		return -1;
+	}
+
+	private static String readFile(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+}
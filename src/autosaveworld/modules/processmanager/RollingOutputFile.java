@@ -0,0 +1,77 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.processmanager;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+// Writes process output to file, file is moved to .1 when it becomes larger than max size
+public class RollingOutputFile {
+
+	private final File file;
+	private final File rolledfile;
+	private final long maxsize;
+
+	private BufferedWriter writer;
+	private long written;
+
+	public RollingOutputFile(File file, long maxsize) {
+		this.file = file;
+		this.rolledfile = new File(file.getPath() + ".1");
+		this.maxsize = maxsize;
+	}
+
+	public void writeLine(String line) throws IOException {
+		if (writer == null) {
+			file.getParentFile().mkdirs();
+			written = file.length();
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+		}
+		if (written >= maxsize) {
+			writer.close();
+			rolledfile.delete();
+			file.renameTo(rolledfile);
+			written = 0;
+			writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+		}
+		writer.write(line);
+		writer.newLine();
+		written += line.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+	}
+
+	public void flush() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	public void close() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+			}
+			writer = null;
+		}
+	}
+
+}
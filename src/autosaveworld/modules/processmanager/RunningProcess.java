@@ -23,24 +23,26 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 
 import org.bukkit.command.CommandSender;
 
 public class RunningProcess {
 
 	private String[] args;
+	private OutputRingBuffer output;
+	private RollingOutputFile outputfile;
 
-	public RunningProcess(String[] args) {
+	public RunningProcess(String[] args, int outputbuffersize, RollingOutputFile outputfile) {
 		this.args = args;
+		this.output = new OutputRingBuffer(outputbuffersize);
+		this.outputfile = outputfile;
 	}
 
-	private Process p;
+	private volatile Process p;
+	private int pid = -1;
 
-	private Queue<String> output = new LinkedList<String>();
-
-	public void start(CommandSender sender) {
+	public void start(CommandSender sender, ExecutorService readers) {
 		sender.sendMessage("Starting process");
 		ProcessBuilder pb = new ProcessBuilder();
 		pb.redirectErrorStream(true);
@@ -52,26 +54,42 @@ public class RunningProcess {
 			sender.sendMessage(e.getMessage());
 			return;
 		}
-		new Thread() {
+		pid = ProcessStats.getPid(p);
+		final Process process = p;
+		readers.execute(new Runnable() {
 			@Override
 			public void run() {
-				BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()));
+				BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
 				String line;
 				try {
 					while ((p != null) && ((line = br.readLine()) != null)) {
 						output.add(line);
+						if (outputfile != null) {
+							outputfile.writeLine(line);
+							// flush only when there is no more output available right now, so chatty processes won't cause a write per line
+							if (!br.ready()) {
+								outputfile.flush();
+							}
+						}
 					}
 				} catch (IOException e) {
+				} finally {
+					if (outputfile != null) {
+						outputfile.close();
+					}
 				}
 			}
-		}.start();
+		});
 		sender.sendMessage("Process started");
 	}
 
 	public void printOutput(CommandSender sender) {
 		sender.sendMessage("Printing latest process output");
-		String line;
-		while ((line = output.poll()) != null) {
+		long dropped = output.resetDropped();
+		if (dropped > 0) {
+			sender.sendMessage(dropped + " older lines were dropped");
+		}
+		for (String line : output.drain()) {
 			sender.sendMessage(line);
 		}
 		try {
@@ -82,6 +100,31 @@ public class RunningProcess {
 		sender.sendMessage("Process output print finished");
 	}
 
+	public String getStatus() {
+		Process process = p;
+		if (process == null) {
+			return "stopped";
+		}
+		try {
+			return "finished with exit code " + process.exitValue();
+		} catch (IllegalThreadStateException e) {
+		}
+		StringBuilder status = new StringBuilder();
+		status.append("running");
+		if (pid >= 0) {
+			status.append(", pid ").append(pid);
+			long cputime = ProcessStats.getCpuTime(pid);
+			if (cputime >= 0) {
+				status.append(", cpu ").append(cputime / 1000).append("s");
+			}
+			long memory = ProcessStats.getResidentMemory(pid);
+			if (memory >= 0) {
+				status.append(", memory ").append(memory / 1024).append("MB");
+			}
+		}
+		return status.toString();
+	}
+
 	public void supplyInput(CommandSender sender, String line) {
 		sender.sendMessage("Sending line to the process");
 		try {
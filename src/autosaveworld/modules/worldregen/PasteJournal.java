@@ -0,0 +1,95 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.worldregen;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashSet;
+
+import autosaveworld.core.GlobalConstants;
+import autosaveworld.core.logging.MessageLogger;
+
+// Remembers which schematics were already pasted, so paste can continue from where it stopped after crash
+// Every finished schematic is appended as a separate line and flushed immediately
+public class PasteJournal {
+
+	private HashSet<String> done = new HashSet<String>();
+	private BufferedWriter writer;
+
+	public void load() {
+		File file = new File(GlobalConstants.getPasteJournalFile());
+		if (!file.exists()) {
+			return;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					done.add(line);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	public int getDoneCount() {
+		return done.size();
+	}
+
+	public boolean isDone(File schematic) {
+		return done.contains(schematic.getPath());
+	}
+
+	public void markDone(File schematic) {
+		String path = schematic.getPath();
+		if (!done.add(path)) {
+			return;
+		}
+		try {
+			if (writer == null) {
+				writer = new BufferedWriter(new FileWriter(GlobalConstants.getPasteJournalFile(), true));
+			}
+			writer.write(path);
+			writer.newLine();
+			writer.flush();
+		} catch (IOException e) {
+			MessageLogger.warn("Could not write worldregen paste journal");
+		}
+	}
+
+	public void close() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+			}
+			writer = null;
+		}
+	}
+
+	public void delete() {
+		close();
+		new File(GlobalConstants.getPasteJournalFile()).delete();
+	}
+
+}
@@ -0,0 +1,135 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.worldregen;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import autosaveworld.modules.worldregen.SchematicData.SchematicToSave;
+
+// Works directly with anvil region files: only sectors of chunks that should be kept are copied to the new region file
+public class RegionFilesTrimmer {
+
+	private static final int SECTOR_SIZE = 4096;
+	private static final int CHUNKS_PER_REGION = 1024;
+
+	public static Set<Long> getChunks(Collection<SchematicToSave> schematics) {
+		HashSet<Long> chunks = new HashSet<Long>();
+		for (SchematicToSave schematic : schematics) {
+			int minx = Math.min(schematic.getMin().getBlockX(), schematic.getMax().getBlockX()) >> 4;
+			int maxx = Math.max(schematic.getMin().getBlockX(), schematic.getMax().getBlockX()) >> 4;
+			int minz = Math.min(schematic.getMin().getBlockZ(), schematic.getMax().getBlockZ()) >> 4;
+			int maxz = Math.max(schematic.getMin().getBlockZ(), schematic.getMax().getBlockZ()) >> 4;
+			for (int x = minx; x <= maxx; x++) {
+				for (int z = minz; z <= maxz; z++) {
+					chunks.add(getChunkKey(x, z));
+				}
+			}
+		}
+		return chunks;
+	}
+
+	public static long getChunkKey(int x, int z) {
+		return (((long) x) << 32) | (z & 0xFFFFFFFFL);
+	}
+
+	public static void trimRegionFolder(File regionfolder, Set<Long> chunkstokeep) {
+		File[] files = regionfolder.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String[] split = file.getName().split("[.]");
+			if ((split.length != 4) || !split[0].equals("r") || !split[3].equals("mca")) {
+				continue;
+			}
+			try {
+				trimRegionFile(file, Integer.parseInt(split[1]), Integer.parseInt(split[2]), chunkstokeep);
+			} catch (Throwable t) {
+				t.printStackTrace();
+			}
+		}
+	}
+
+	private static void trimRegionFile(File file, int regionx, int regionz, Set<Long> chunkstokeep) throws IOException {
+		boolean[] keep = new boolean[CHUNKS_PER_REGION];
+		boolean keepany = false;
+		for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+			int chunkx = (regionx << 5) + (index & 31);
+			int chunkz = (regionz << 5) + (index >> 5);
+			keep[index] = chunkstokeep.contains(getChunkKey(chunkx, chunkz));
+			keepany |= keep[index];
+		}
+		// whole region file is not claimed
+		if (!keepany) {
+			file.delete();
+			return;
+		}
+		File newfile = new File(file.getPath() + ".tmp");
+		try (RandomAccessFile oldregion = new RandomAccessFile(file, "r"); RandomAccessFile newregion = new RandomAccessFile(newfile, "rw")) {
+			newregion.setLength(0);
+			int[] oldlocations = new int[CHUNKS_PER_REGION];
+			int[] timestamps = new int[CHUNKS_PER_REGION];
+			oldregion.seek(0);
+			for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+				oldlocations[index] = oldregion.readInt();
+			}
+			for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+				timestamps[index] = oldregion.readInt();
+			}
+			int[] newlocations = new int[CHUNKS_PER_REGION];
+			int nextsector = 2;
+			byte[] buffer = new byte[SECTOR_SIZE];
+			for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+				int offset = oldlocations[index] >>> 8;
+				int count = oldlocations[index] & 0xFF;
+				if (!keep[index] || (offset < 2) || (count == 0) || ((((long) offset + count) * SECTOR_SIZE) > oldregion.length())) {
+					timestamps[index] = 0;
+					continue;
+				}
+				// copy chunk sectors as is
+				oldregion.seek((long) offset * SECTOR_SIZE);
+				newregion.seek((long) nextsector * SECTOR_SIZE);
+				for (int i = 0; i < count; i++) {
+					oldregion.readFully(buffer);
+					newregion.write(buffer);
+				}
+				newlocations[index] = (nextsector << 8) | count;
+				nextsector += count;
+			}
+			newregion.seek(0);
+			for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+				newregion.writeInt(newlocations[index]);
+			}
+			for (int index = 0; index < CHUNKS_PER_REGION; index++) {
+				newregion.writeInt(timestamps[index]);
+			}
+			newregion.setLength((long) nextsector * SECTOR_SIZE);
+		} catch (IOException e) {
+			newfile.delete();
+			throw e;
+		}
+		file.delete();
+		newfile.renameTo(file);
+	}
+
+}
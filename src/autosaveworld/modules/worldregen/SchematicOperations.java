@@ -17,119 +17,272 @@
 
 package autosaveworld.modules.worldregen;
 
-import java.io.IOException;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.bukkit.World;
 
+import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.modules.worldregen.SchematicData.SchematicToLoad;
 import autosaveworld.modules.worldregen.SchematicData.SchematicToSave;
+import autosaveworld.utils.ChunkPregenerator;
 import autosaveworld.utils.SchedulerUtils;
+import autosaveworld.utils.TickBudgetedTask;
 
 import com.sk89q.worldedit.CuboidClipboard;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.Vector;
 import com.sk89q.worldedit.blocks.BaseBlock;
 import com.sk89q.worldedit.bukkit.BukkitWorld;
-import com.sk89q.worldedit.data.DataException;
-import com.sk89q.worldedit.schematic.SchematicFormat;
 
 @SuppressWarnings("deprecation")
 public class SchematicOperations {
 
-	public static void saveToSchematic(final World world, final List<SchematicToSave> schematicdatas) {
-		Runnable copypaste = new Runnable() {
-			@Override
-			public void run() {
-				BukkitWorld weworld = new BukkitWorld(world);
-				for (SchematicToSave schematicdata : schematicdatas) {
+	public static void saveToSchematic(World world, List<SchematicToSave> schematicdatas, long tickbudget, int threads) {
+		BukkitWorld weworld = new BukkitWorld(world);
+		// only block copy is done on main thread, nbt encoding and writing is done by savers
+		// queue is bounded so we won't keep too many copied clipboards in memory
+		threads = Math.max(1, threads);
+		ThreadPoolExecutor savers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+		for (final SchematicToSave schematicdata : schematicdatas) {
+			// copy blocks to clipboard
+			ClipboardCopyTask copytask = new ClipboardCopyTask(weworld, schematicdata.getMin(), schematicdata.getMax());
+			SchedulerUtils.callTickBudgetedTaskAndWait(copytask, tickbudget);
+			final CuboidClipboard clipboard = copytask.getClipboard();
+			savers.execute(new Runnable() {
+				@Override
+				public void run() {
 					try {
 						// create dirs if needed
 						schematicdata.getFile().getParentFile().mkdirs();
-						// create clipboard
-						EditSession es = new EditSession(weworld, Integer.MAX_VALUE);
-						CuboidClipboard clipboard = new CuboidClipboard(schematicdata.getMax().subtract(schematicdata.getMin()).add(new Vector(1, 1, 1)), schematicdata.getMin(), schematicdata.getMin().subtract(schematicdata.getMax()));
-						es.setFastMode(true);
-						// copy blocks
-						clipboard.copy(es);
 						// save to schematic
-						SchematicFormat.MCEDIT.save(clipboard, schematicdata.getFile());
+						StructureFormat.save(clipboard, schematicdata.getFile());
 					} catch (Throwable e) {
 						e.printStackTrace();
 					}
 				}
+			});
+		}
+		savers.shutdown();
+		try {
+			savers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	// amount of blocks copied or pasted by one step, so single step never takes too much of the tick budget
+	private static final int BLOCKS_PER_STEP = 4096;
+
+	// copies up to BLOCKS_PER_STEP blocks of the clipboard each step
+	private static class ClipboardCopyTask implements TickBudgetedTask {
+
+		private BukkitWorld weworld;
+		private CuboidClipboard clipboard;
+		private EditSession es;
+		private long index = 0;
+
+		public ClipboardCopyTask(BukkitWorld weworld, Vector min, Vector max) {
+			this.weworld = weworld;
+			this.clipboard = new CuboidClipboard(max.subtract(min).add(new Vector(1, 1, 1)), min, min.subtract(max));
+		}
+
+		public CuboidClipboard getClipboard() {
+			return clipboard;
+		}
+
+		@Override
+		public boolean runNext() {
+			if (es == null) {
+				es = new EditSession(weworld, Integer.MAX_VALUE);
+				es.setFastMode(true);
 			}
-		};
-		SchedulerUtils.callSyncTaskAndWait(copypaste);
+			Vector size = clipboard.getSize();
+			Vector origin = clipboard.getOrigin();
+			long sizey = size.getBlockY();
+			long sizez = size.getBlockZ();
+			long total = size.getBlockX() * sizey * sizez;
+			long end = Math.min(total, index + BLOCKS_PER_STEP);
+			for (; index < end; index++) {
+				Vector blockpos = new Vector((int) (index / (sizey * sizez)), (int) ((index / sizez) % sizey), (int) (index % sizez));
+				clipboard.setBlock(blockpos, es.getBlock(blockpos.add(origin)));
+			}
+			return index < total;
+		}
+
 	}
 
-	public static void pasteFromSchematic(final World world, final List<SchematicToLoad> schematicdatas) {
-		final LinkedList<CuboidClipboard> clipboards = new LinkedList<CuboidClipboard>();
-		// load from schematics to clipboards
-		for (SchematicToLoad schematicdata : schematicdatas) {
-			try {
-				clipboards.add(SchematicFormat.MCEDIT.load(schematicdata.getFile()));
-			} catch (IOException | DataException e) {
-				e.printStackTrace();
+	// returns amount of schematics that failed to load, they are left pending in journal
+	public static int pasteFromSchematic(World world, List<SchematicToLoad> allschematicdatas, PasteJournal journal, long tickbudget, int threads) {
+		BukkitWorld weworld = new BukkitWorld(world);
+		// skip schematics that were pasted before restart
+		ArrayList<SchematicToLoad> schematicdatas = new ArrayList<SchematicToLoad>();
+		for (SchematicToLoad schematicdata : allschematicdatas) {
+			if (!journal.isDone(schematicdata.getFile())) {
+				schematicdatas.add(schematicdata);
 			}
 		}
-		// generate chunks
-		Runnable genchunks = new Runnable() {
-			@Override
-			public void run() {
-				for (CuboidClipboard clipboard : clipboards) {
-					final Vector size = clipboard.getSize();
-					final Vector origin = clipboard.getOrigin();
+		if (schematicdatas.size() != allschematicdatas.size()) {
+			MessageLogger.info("Resuming paste, " + (allschematicdatas.size() - schematicdatas.size()) + " of " + allschematicdatas.size() + " schematics were already pasted");
+		}
+		// schematics are loaded by loaders and pasted as soon as they are loaded
+		// queue is bounded so only few loaded clipboards are kept in memory at once
+		threads = Math.max(1, threads);
+		final LinkedBlockingQueue<LoadedSchematic> loaded = new LinkedBlockingQueue<LoadedSchematic>(threads * 2);
+		ExecutorService loaders = Executors.newFixedThreadPool(threads);
+		for (final SchematicToLoad schematicdata : schematicdatas) {
+			loaders.execute(new Runnable() {
+				@Override
+				public void run() {
+					CuboidClipboard clipboard = null;
+					try {
+						clipboard = StructureFormat.load(schematicdata.getFile());
+					} catch (Throwable t) {
+						// any failure still has to be reported to paster, otherwise it will wait for this schematic forever
+						t.printStackTrace();
+					}
+					try {
+						loaded.put(new LoadedSchematic(schematicdata, clipboard));
+					} catch (InterruptedException e) {
+					}
+				}
+			});
+		}
+		loaders.shutdown();
+		long starttime = System.currentTimeMillis();
+		long lastreport = starttime;
+		long pastedblocks = 0;
+		int failed = 0;
+		try {
+			for (int i = 0; i < schematicdatas.size(); i++) {
+				LoadedSchematic schematic = loaded.take();
+				CuboidClipboard clipboard = schematic.getClipboard();
+				if (clipboard != null) {
 					// generate chunks at schematic position and 3 chunk radius nearby
-					for (int x = -16 * 3; x < (size.getBlockX() + (16 * 3)); x += 16) {
-						for (int z = -16 * 3; z < (size.getBlockZ() + (16 * 3)); z += 16) {
-							world.getChunkAt(origin.getBlockX() + x, origin.getBlockZ() + z).load();
-						}
+					try {
+						new ChunkPregenerator(world, getChunksAround(clipboard, 3)).start(tickbudget).get();
+					} catch (ExecutionException e) {
+						e.printStackTrace();
 					}
+					SchedulerUtils.callTickBudgetedTaskAndWait(new ClipboardPasteTask(weworld, clipboard), tickbudget);
+					Vector size = clipboard.getSize();
+					pastedblocks += (long) size.getBlockX() * size.getBlockY() * size.getBlockZ();
+					journal.markDone(schematic.getSchematicData().getFile());
+				} else {
+					// keep it pending in journal, so it will be retried after restart
+					failed++;
+					MessageLogger.warn("Failed to load schematic " + schematic.getSchematicData().getFile().getPath() + ", it was not pasted");
+				}
+				// report progress
+				long now = System.currentTimeMillis();
+				int pasted = i + 1;
+				if (((now - lastreport) >= 5000) || (pasted == schematicdatas.size())) {
+					lastreport = now;
+					long elapsed = Math.max(1, now - starttime);
+					long eta = ((elapsed * (schematicdatas.size() - pasted)) / pasted) / 1000;
+					MessageLogger.info("Pasted " + (allschematicdatas.size() - schematicdatas.size() + pasted) + "/" + allschematicdatas.size() + " schematics, " + ((pastedblocks * 1000) / elapsed) + " blocks/s, ETA " + eta + "s");
 				}
 			}
-		};
-		SchedulerUtils.callSyncTaskAndWait(genchunks);
-		// paste schematics
-		Runnable paste = new Runnable() {
-			@Override
-			public void run() {
-				BukkitWorld weworld = new BukkitWorld(world);
-				for (CuboidClipboard clipboard : clipboards) {
-					EditSession es = new EditSession(weworld, Integer.MAX_VALUE);
-					es.setFastMode(true);
-					es.enableQueue();
-					final Vector size = clipboard.getSize();
-					final Vector origin = clipboard.getOrigin();
-					// paste blocks
-					for (int x = 0; x < size.getBlockX(); ++x) {
-						for (int y = 0; y < size.getBlockY(); ++y) {
-							for (int z = 0; z < size.getBlockZ(); ++z) {
-								Vector blockpos = new Vector(x, y, z);
-								final BaseBlock block = clipboard.getBlock(blockpos);
-
-								if (block == null) {
-									continue;
-								}
-
-								try {
-									es.smartSetBlock(new Vector(x, y, z).add(origin), block);
-								} catch (Throwable t) {
-									t.printStackTrace();
-								}
-							}
-						}
+		} catch (InterruptedException e) {
+			loaders.shutdownNow();
+		}
+		return failed;
+	}
+
+	private static Set<Long> getChunksAround(CuboidClipboard clipboard, int radius) {
+		LinkedHashSet<Long> chunks = new LinkedHashSet<Long>();
+		Vector min = clipboard.getOrigin();
+		Vector max = min.add(clipboard.getSize()).subtract(1, 1, 1);
+		for (int x = (min.getBlockX() >> 4) - radius; x <= ((max.getBlockX() >> 4) + radius); x++) {
+			for (int z = (min.getBlockZ() >> 4) - radius; z <= ((max.getBlockZ() >> 4) + radius); z++) {
+				chunks.add(ChunkPregenerator.getChunkKey(x, z));
+			}
+		}
+		return chunks;
+	}
+
+	private static class LoadedSchematic {
+
+		private SchematicToLoad schematicdata;
+		private CuboidClipboard clipboard;
+
+		public LoadedSchematic(SchematicToLoad schematicdata, CuboidClipboard clipboard) {
+			this.schematicdata = schematicdata;
+			this.clipboard = clipboard;
+		}
+
+		public SchematicToLoad getSchematicData() {
+			return schematicdata;
+		}
+
+		public CuboidClipboard getClipboard() {
+			return clipboard;
+		}
+
+	}
+
+	// pastes up to BLOCKS_PER_STEP blocks of the clipboard each step
+	private static class ClipboardPasteTask implements TickBudgetedTask {
+
+		private BukkitWorld weworld;
+		private CuboidClipboard clipboard;
+		private EditSession es;
+
+		private long index = 0;
+
+		public ClipboardPasteTask(BukkitWorld weworld, CuboidClipboard clipboard) {
+			this.weworld = weworld;
+			this.clipboard = clipboard;
+		}
+
+		@Override
+		public boolean runNext() {
+			Vector size = clipboard.getSize();
+			Vector origin = clipboard.getOrigin();
+			if (es == null) {
+				es = new EditSession(weworld, Integer.MAX_VALUE);
+				es.setFastMode(true);
+				es.enableQueue();
+			}
+			// paste blocks
+			long sizey = size.getBlockY();
+			long sizez = size.getBlockZ();
+			long total = size.getBlockX() * sizey * sizez;
+			if (index < total) {
+				long end = Math.min(total, index + BLOCKS_PER_STEP);
+				for (; index < end; index++) {
+					Vector blockpos = new Vector((int) (index / (sizey * sizez)), (int) ((index / sizez) % sizey), (int) (index % sizez));
+					final BaseBlock block = clipboard.getBlock(blockpos);
+
+					if (block == null) {
+						continue;
 					}
+
 					try {
-						es.flushQueue();
+						es.smartSetBlock(blockpos.add(origin), block);
 					} catch (Throwable t) {
 						t.printStackTrace();
 					}
 				}
+				return true;
 			}
-		};
-		SchedulerUtils.callSyncTaskAndWait(paste);
+			// place queued blocks (attachments) after all other blocks are placed
+			try {
+				es.flushQueue();
+			} catch (Throwable t) {
+				t.printStackTrace();
+			}
+			return false;
+		}
+
 	}
 
 }
@@ -0,0 +1,197 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.worldregen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import autosaveworld.utils.ReflectionUtils;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.CuboidClipboard;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.data.DataException;
+import com.sk89q.worldedit.schematic.SchematicFormat;
+
+// Temp structure format used by worldregen
+// Header: magic, version, size, origin, offset (not compressed)
+// Body (deflate with fastest level): block palette, palette indexes for every block in x-y-z order, tile entities nbt
+@SuppressWarnings("deprecation")
+public class StructureFormat {
+
+	private static final int MAGIC = 0x41535753;
+	private static final int VERSION = 1;
+	private static final int PACKED_BLOCKS_COUNT = 4096 << 4;
+
+	public static void save(CuboidClipboard clipboard, File file) throws IOException {
+		Vector size = clipboard.getSize();
+		int sizex = size.getBlockX();
+		int sizey = size.getBlockY();
+		int sizez = size.getBlockZ();
+		// pack blocks and build palette in one pass
+		// packed block is (id << 4) | data, or -1 for empty block, so palette lookup is a plain array indexed by packed + 1
+		BaseBlock[][][] blocks = getBlocks(clipboard);
+		int[] packedblocks = new int[sizex * sizey * sizez];
+		int[] paletteindexes = new int[PACKED_BLOCKS_COUNT + 1];
+		int[] palette = new int[256];
+		int palettesize = 0;
+		ArrayList<Vector> tileentities = new ArrayList<Vector>();
+		int i = 0;
+		for (int x = 0; x < sizex; x++) {
+			for (int y = 0; y < sizey; y++) {
+				for (int z = 0; z < sizez; z++) {
+					BaseBlock block = blocks != null ? blocks[x][y][z] : clipboard.getBlock(new Vector(x, y, z));
+					int packed = packBlock(block);
+					packedblocks[i++] = packed;
+					// palette indexes are stored +1, so 0 means that block is not in palette yet
+					if (paletteindexes[packed + 1] == 0) {
+						if (palettesize == palette.length) {
+							palette = Arrays.copyOf(palette, palettesize << 1);
+						}
+						palette[palettesize++] = packed;
+						paletteindexes[packed + 1] = palettesize;
+					}
+					if ((block != null) && block.hasNbtData()) {
+						tileentities.add(new Vector(x, y, z));
+					}
+				}
+			}
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			writeVector(out, size);
+			writeVector(out, clipboard.getOrigin());
+			writeVector(out, clipboard.getOffset());
+			out.flush();
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				DataOutputStream body = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(out, deflater, 65536), 65536));
+				body.writeInt(palettesize);
+				for (int p = 0; p < palettesize; p++) {
+					body.writeInt(palette[p]);
+				}
+				boolean wideindexes = palettesize > 256;
+				for (int packed : packedblocks) {
+					int index = paletteindexes[packed + 1] - 1;
+					if (wideindexes) {
+						body.writeShort(index);
+					} else {
+						body.writeByte(index);
+					}
+				}
+				body.writeInt(tileentities.size());
+				NBTOutputStream nbtout = new NBTOutputStream(body);
+				for (Vector pos : tileentities) {
+					writeVector(body, pos);
+					nbtout.writeNamedTag("", clipboard.getBlock(pos).getNbtData());
+				}
+				body.close();
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+
+	public static CuboidClipboard load(File file) throws IOException, DataException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				// schematic was saved by older version
+				in.close();
+				return SchematicFormat.MCEDIT.load(file);
+			}
+			int version = in.readUnsignedByte();
+			if (version != VERSION) {
+				throw new DataException("Unsupported structure format version " + version);
+			}
+			Vector size = readVector(in);
+			Vector origin = readVector(in);
+			Vector offset = readVector(in);
+			CuboidClipboard clipboard = new CuboidClipboard(size, origin, offset);
+			DataInputStream body = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), 65536));
+			int[] palette = new int[body.readInt()];
+			for (int i = 0; i < palette.length; i++) {
+				palette[i] = body.readInt();
+			}
+			boolean wideindexes = palette.length > 256;
+			for (int x = 0; x < size.getBlockX(); x++) {
+				for (int y = 0; y < size.getBlockY(); y++) {
+					for (int z = 0; z < size.getBlockZ(); z++) {
+						int packed = palette[wideindexes ? body.readUnsignedShort() : body.readUnsignedByte()];
+						if (packed != -1) {
+							clipboard.setBlock(new Vector(x, y, z), new BaseBlock(packed >>> 4, packed & 0xF));
+						}
+					}
+				}
+			}
+			int tileentitiescount = body.readInt();
+			NBTInputStream nbtin = new NBTInputStream(body);
+			for (int i = 0; i < tileentitiescount; i++) {
+				Vector pos = readVector(body);
+				Tag tag = nbtin.readNamedTag().getTag();
+				BaseBlock block = clipboard.getBlock(pos);
+				if ((block != null) && (tag instanceof CompoundTag)) {
+					block.setNbtData((CompoundTag) tag);
+				}
+			}
+			return clipboard;
+		}
+	}
+
+	// returns clipboard blocks array, so blocks can be read without creating vector for every block, or null if it is not accessible
+	private static BaseBlock[][][] getBlocks(CuboidClipboard clipboard) {
+		try {
+			return (BaseBlock[][][]) ReflectionUtils.getField(CuboidClipboard.class, "data").get(clipboard);
+		} catch (Throwable t) {
+			return null;
+		}
+	}
+
+	private static int packBlock(BaseBlock block) {
+		if (block == null) {
+			return -1;
+		}
+		return (block.getId() << 4) | (block.getData() & 0xF);
+	}
+
+	private static void writeVector(DataOutputStream out, Vector vector) throws IOException {
+		out.writeInt(vector.getBlockX());
+		out.writeInt(vector.getBlockY());
+		out.writeInt(vector.getBlockZ());
+	}
+
+	private static Vector readVector(DataInputStream in) throws IOException {
+		return new Vector(in.readInt(), in.readInt(), in.readInt());
+	}
+
+}
@@ -0,0 +1,52 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.worldregen;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import autosaveworld.core.GlobalConstants;
+import autosaveworld.modules.worldregen.SchematicData.SchematicToLoad;
+import autosaveworld.modules.worldregen.tasks.PasteDataProvider;
+
+// Provides structures that were saved after StructuresPlanner merged all volumes
+public class StructuresDataProvider implements PasteDataProvider {
+
+	public static boolean hasSavedStructures() {
+		return new File(GlobalConstants.getStructuresTempFolder()).exists();
+	}
+
+	@Override
+	public List<SchematicToLoad> getSchematicsToPaste() {
+		ArrayList<SchematicToLoad> schematics = new ArrayList<SchematicToLoad>();
+		File[] files = new File(GlobalConstants.getStructuresTempFolder()).listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				schematics.add(new SchematicToLoad(
+					file.getPath(),
+					"Pasting structure " + name + " from schematic",
+					"Structure " + name + " pasted"
+				));
+			}
+		}
+		return schematics;
+	}
+
+}
@@ -0,0 +1,263 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.modules.worldregen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import autosaveworld.core.GlobalConstants;
+import autosaveworld.modules.worldregen.SchematicData.SchematicToSave;
+
+import com.sk89q.worldedit.Vector;
+
+// Unions all volumes requested by copy data providers into a set of non overlapping boxes
+// Overlapping parts are cut out, after that boxes that touch each other with the same face are merged back
+// Boxes are never larger than MAX_SIZE on x and z axes, so single structure clipboard won't take too much memory
+public class StructuresPlanner {
+
+	private static final int CELL_SHIFT = 7;
+	private static final int MAX_SIZE = 256;
+	private static final long MAX_VOLUME = (long) MAX_SIZE * MAX_SIZE * 256;
+
+	public static List<SchematicToSave> plan(List<SchematicToSave> requested) {
+		ArrayList<Box> boxes = new ArrayList<Box>();
+		HashMap<Long, ArrayList<Box>> cells = new HashMap<Long, ArrayList<Box>>();
+		for (SchematicToSave schematic : requested) {
+			Box requestedbox = new Box(schematic.getMin(), schematic.getMax());
+			// split too large boxes on the cells grid
+			ArrayList<Box> pieces = new ArrayList<Box>();
+			requestedbox.splitOversized(pieces);
+			// cut out parts that are already covered by other boxes
+			for (Box existing : getCandidates(cells, requestedbox)) {
+				ArrayList<Box> remaining = new ArrayList<Box>();
+				for (Box piece : pieces) {
+					if (piece.intersects(existing)) {
+						piece.subtract(existing, remaining);
+					} else {
+						remaining.add(piece);
+					}
+				}
+				pieces = remaining;
+				if (pieces.isEmpty()) {
+					break;
+				}
+			}
+			for (Box piece : pieces) {
+				boxes.add(piece);
+				addToCells(cells, piece);
+			}
+		}
+
+		// merge touching boxes until nothing can be merged anymore
+		int count;
+		do {
+			count = boxes.size();
+			boxes = mergeAlongAxis(boxes, 0);
+			boxes = mergeAlongAxis(boxes, 2);
+			boxes = mergeAlongAxis(boxes, 1);
+		} while (boxes.size() < count);
+
+		ArrayList<SchematicToSave> planned = new ArrayList<SchematicToSave>(boxes.size());
+		int index = 0;
+		for (Box box : boxes) {
+			planned.add(new SchematicToSave(
+				GlobalConstants.getStructuresTempFolder() + index,
+				new Vector(box.min[0], box.min[1], box.min[2]),
+				new Vector(box.max[0], box.max[1], box.max[2]),
+				"Saving structure " + index + " to schematic",
+				"Structure " + index + " saved"
+			));
+			index++;
+		}
+		return planned;
+	}
+
+	private static ArrayList<Box> getCandidates(HashMap<Long, ArrayList<Box>> cells, Box box) {
+		ArrayList<Box> candidates = new ArrayList<Box>();
+		for (int cx = box.min[0] >> CELL_SHIFT; cx <= (box.max[0] >> CELL_SHIFT); cx++) {
+			for (int cz = box.min[2] >> CELL_SHIFT; cz <= (box.max[2] >> CELL_SHIFT); cz++) {
+				ArrayList<Box> cell = cells.get(getCellKey(cx, cz));
+				if (cell != null) {
+					for (Box candidate : cell) {
+						// box may be registered in several cells, so check for duplicates
+						if (box.intersects(candidate) && !candidates.contains(candidate)) {
+							candidates.add(candidate);
+						}
+					}
+				}
+			}
+		}
+		return candidates;
+	}
+
+	private static void addToCells(HashMap<Long, ArrayList<Box>> cells, Box box) {
+		for (int cx = box.min[0] >> CELL_SHIFT; cx <= (box.max[0] >> CELL_SHIFT); cx++) {
+			for (int cz = box.min[2] >> CELL_SHIFT; cz <= (box.max[2] >> CELL_SHIFT); cz++) {
+				long key = getCellKey(cx, cz);
+				ArrayList<Box> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<Box>();
+					cells.put(key, cell);
+				}
+				cell.add(box);
+			}
+		}
+	}
+
+	private static long getCellKey(int cx, int cz) {
+		return (((long) cx) << 32) | (cz & 0xFFFFFFFFL);
+	}
+
+	// merges boxes that have the same cross section and touch each other along the given axis
+	private static ArrayList<Box> mergeAlongAxis(ArrayList<Box> boxes, final int axis) {
+		LinkedHashMap<String, ArrayList<Box>> groups = new LinkedHashMap<String, ArrayList<Box>>();
+		for (Box box : boxes) {
+			String key = box.getCrossSectionKey(axis);
+			ArrayList<Box> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<Box>();
+				groups.put(key, group);
+			}
+			group.add(box);
+		}
+		ArrayList<Box> merged = new ArrayList<Box>(boxes.size());
+		for (ArrayList<Box> group : groups.values()) {
+			Collections.sort(group, new Comparator<Box>() {
+				@Override
+				public int compare(Box o1, Box o2) {
+					return Integer.compare(o1.min[axis], o2.min[axis]);
+				}
+			});
+			Box current = null;
+			for (Box box : group) {
+				if ((current != null) && ((current.max[axis] + 1) == box.min[axis]) && canMerge(current, box, axis)) {
+					current.max[axis] = box.max[axis];
+				} else {
+					current = box;
+					merged.add(current);
+				}
+			}
+		}
+		return merged;
+	}
+
+	// checks that box merged from two boxes won't be too large
+	private static boolean canMerge(Box first, Box second, int axis) {
+		int length = (second.max[axis] - first.min[axis]) + 1;
+		if ((axis != 1) && (length > MAX_SIZE)) {
+			return false;
+		}
+		long volume = length;
+		for (int i = 0; i < 3; i++) {
+			if (i != axis) {
+				volume *= (first.max[i] - first.min[i]) + 1;
+			}
+		}
+		return volume <= MAX_VOLUME;
+	}
+
+	private static class Box {
+
+		private final int[] min;
+		private final int[] max;
+
+		public Box(Vector min, Vector max) {
+			this(
+				new int[] { Math.min(min.getBlockX(), max.getBlockX()), Math.min(min.getBlockY(), max.getBlockY()), Math.min(min.getBlockZ(), max.getBlockZ()) },
+				new int[] { Math.max(min.getBlockX(), max.getBlockX()), Math.max(min.getBlockY(), max.getBlockY()), Math.max(min.getBlockZ(), max.getBlockZ()) }
+			);
+		}
+
+		private Box(int[] min, int[] max) {
+			this.min = min;
+			this.max = max;
+		}
+
+		public boolean intersects(Box other) {
+			for (int axis = 0; axis < 3; axis++) {
+				if ((max[axis] < other.min[axis]) || (min[axis] > other.max[axis])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// adds parts of this box that are not covered by other box to the result
+		public void subtract(Box other, List<Box> result) {
+			int[] curmin = min.clone();
+			int[] curmax = max.clone();
+			for (int axis = 0; axis < 3; axis++) {
+				if (curmin[axis] < other.min[axis]) {
+					int[] partmax = curmax.clone();
+					partmax[axis] = other.min[axis] - 1;
+					result.add(new Box(curmin.clone(), partmax));
+					curmin[axis] = other.min[axis];
+				}
+				if (curmax[axis] > other.max[axis]) {
+					int[] partmin = curmin.clone();
+					partmin[axis] = other.max[axis] + 1;
+					result.add(new Box(partmin, curmax.clone()));
+					curmax[axis] = other.max[axis];
+				}
+			}
+		}
+
+		// adds this box to the result, splitting it on cells grid along x and z axes if it is larger than MAX_SIZE
+		public void splitOversized(List<Box> result) {
+			ArrayList<Box> pieces = new ArrayList<Box>();
+			pieces.add(this);
+			for (int axis = 0; axis <= 2; axis += 2) {
+				ArrayList<Box> split = new ArrayList<Box>();
+				for (Box piece : pieces) {
+					if (((piece.max[axis] - piece.min[axis]) + 1) <= MAX_SIZE) {
+						split.add(piece);
+						continue;
+					}
+					int start = piece.min[axis];
+					while (start <= piece.max[axis]) {
+						int end = Math.min(piece.max[axis], (((start >> CELL_SHIFT) + 1) << CELL_SHIFT) - 1);
+						int[] partmin = piece.min.clone();
+						int[] partmax = piece.max.clone();
+						partmin[axis] = start;
+						partmax[axis] = end;
+						split.add(new Box(partmin, partmax));
+						start = end + 1;
+					}
+				}
+				pieces = split;
+			}
+			result.addAll(pieces);
+		}
+
+		public String getCrossSectionKey(int axis) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 3; i++) {
+				if (i != axis) {
+					sb.append(min[i]).append(':').append(max[i]).append(':');
+				}
+			}
+			return sb.toString();
+		}
+
+	}
+
+}
@@ -19,6 +19,8 @@ package autosaveworld.modules.worldregen;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import org.bukkit.Bukkit;
 import org.bukkit.World;
@@ -31,6 +33,7 @@ import autosaveworld.config.AutoSaveWorldConfigMSG;
 import autosaveworld.core.AutoSaveWorld;
 import autosaveworld.core.GlobalConstants;
 import autosaveworld.core.logging.MessageLogger;
+import autosaveworld.modules.worldregen.SchematicData.SchematicToSave;
 import autosaveworld.modules.worldregen.plugins.FactionsDataProvider;
 import autosaveworld.modules.worldregen.plugins.GriefPreventionDataProvider;
 import autosaveworld.modules.worldregen.plugins.PStonesDataProvider;
@@ -91,26 +94,38 @@ public class WorldRegenCopyThread extends Thread {
 		MessageLogger.debug("Saving buildings");
 		if ((Bukkit.getPluginManager().getPlugin("WorldGuard") != null) && config.worldRegenSaveWG) {
 			MessageLogger.debug("WG found, adding to copy list");
-			tasks.add(new CopyTask(wtoregen, new WorldGuardDataProvider(wtoregen)));
+			tasks.add(new CopyTask(new WorldGuardDataProvider(wtoregen)));
 		}
 		if ((Bukkit.getPluginManager().getPlugin("Factions") != null) && config.worldRegenSaveFactions) {
 			MessageLogger.debug("Factions found, adding to copy list");
-			tasks.add(new CopyTask(wtoregen, new FactionsDataProvider(wtoregen)));
+			tasks.add(new CopyTask(new FactionsDataProvider(wtoregen)));
 		}
 		if ((Bukkit.getPluginManager().getPlugin("GriefPrevention") != null) && config.worldRegenSaveGP) {
 			MessageLogger.debug("GriefPrevention found, adding to copy list");
-			tasks.add(new CopyTask(wtoregen, new GriefPreventionDataProvider(wtoregen)));
+			tasks.add(new CopyTask(new GriefPreventionDataProvider(wtoregen)));
 		}
 		if ((Bukkit.getPluginManager().getPlugin("Towny") != null) && config.worldregenSaveTowny) {
 			MessageLogger.debug("Towny found, adding to copy list");
-			tasks.add(new CopyTask(wtoregen, new TownyDataProvider(wtoregen)));
+			tasks.add(new CopyTask(new TownyDataProvider(wtoregen)));
 		}
 		if ((Bukkit.getPluginManager().getPlugin("PreciousStones") != null) && config.worldregenSavePStones) {
 			MessageLogger.debug("PreciousStones found, adding to copy list");
-			tasks.add(new CopyTask(wtoregen, new PStonesDataProvider(wtoregen)));
+			tasks.add(new CopyTask(new PStonesDataProvider(wtoregen)));
 		}
+		ArrayList<SchematicToSave> requested = new ArrayList<SchematicToSave>();
 		for (CopyTask task : tasks) {
-			task.doCopy();
+			requested.addAll(task.getSchematicsToCopy());
+		}
+		Set<Long> chunkstokeep = null;
+		if (config.worldRegenRegionFiles) {
+			// claimed chunks will be kept in region files as is, so there is nothing to save
+			chunkstokeep = RegionFilesTrimmer.getChunks(requested);
+			MessageLogger.debug("Found " + chunkstokeep.size() + " claimed chunks, they will be kept in region files");
+		} else {
+			// union all volumes, so every block is saved only once
+			List<SchematicToSave> planned = StructuresPlanner.plan(requested);
+			MessageLogger.debug("Planned " + planned.size() + " structures from " + requested.size() + " requested volumes");
+			SchematicOperations.saveToSchematic(wtoregen, planned, config.worldRegenTickBudget, config.worldRegenSaveThreads);
 		}
 		MessageLogger.debug("Saving finished");
 
@@ -122,14 +137,16 @@ public class WorldRegenCopyThread extends Thread {
 			MessageLogger.debug("Removing finished");
 		}
 
-		// Save worldname file
-		FileConfiguration cfg = new YamlConfiguration();
-		cfg.set("wname", worldtoregen);
-		cfg.save(new File(GlobalConstants.getWorldnameFile()));
+		// Save worldname file, so saved structures will be pasted after restart
+		if (chunkstokeep == null) {
+			FileConfiguration cfg = new YamlConfiguration();
+			cfg.set("wname", worldtoregen);
+			cfg.save(new File(GlobalConstants.getWorldnameFile()));
+		}
 
 		MessageLogger.debug("Deleting map and restarting server");
 		// Add hook that will delete world folder, signal that restart should wait, and schedule restart restart
-		WorldRegenJVMshutdownhook wrsh = new WorldRegenJVMshutdownhook(wtoregen.getWorldFolder().getAbsolutePath());
+		WorldRegenJVMshutdownhook wrsh = new WorldRegenJVMshutdownhook(wtoregen.getWorldFolder().getAbsolutePath(), chunkstokeep);
 		Runtime.getRuntime().addShutdownHook(wrsh);
 		RestartWaiter.incrementWait();
 		plugin.autorestartThread.startrestart(true);
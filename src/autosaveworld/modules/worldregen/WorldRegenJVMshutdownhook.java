@@ -18,6 +18,7 @@
 package autosaveworld.modules.worldregen;
 
 import java.io.File;
+import java.util.Set;
 
 import autosaveworld.threads.restart.RestartWaiter;
 import autosaveworld.utils.FileUtils;
@@ -25,9 +26,16 @@ import autosaveworld.utils.FileUtils;
 public class WorldRegenJVMshutdownhook extends Thread {
 
 	private String fldtodelete;
+	private Set<Long> chunkstokeep;
 
 	public WorldRegenJVMshutdownhook(String fldtodelete) {
+		this(fldtodelete, null);
+	}
+
+	// if chunks to keep are set, only other chunks are deleted from region files
+	public WorldRegenJVMshutdownhook(String fldtodelete, Set<Long> chunkstokeep) {
 		this.fldtodelete = fldtodelete;
+		this.chunkstokeep = chunkstokeep;
 	}
 
 	@Override
@@ -35,8 +43,13 @@ public class WorldRegenJVMshutdownhook extends Thread {
 
 		Thread.currentThread().setName("AutoSaveWorld WorldRegenShutdownHook");
 
-		// Delete region from world folder
-		FileUtils.deleteDirectory(new File(fldtodelete + File.separator + "region"));
+		if (chunkstokeep == null) {
+			// Delete region from world folder
+			FileUtils.deleteDirectory(new File(fldtodelete + File.separator + "region"));
+		} else {
+			// Delete all not claimed chunks from region files
+			RegionFilesTrimmer.trimRegionFolder(new File(fldtodelete + File.separator + "region"), chunkstokeep);
+		}
 		// Signal that restarthook can restart
 		RestartWaiter.decrementWait();
 	}
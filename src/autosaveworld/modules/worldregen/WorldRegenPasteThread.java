@@ -99,29 +99,47 @@ public class WorldRegenPasteThread extends Thread {
 
 		MessageLogger.debug("Restoring buildings");
 
+		// load list of already pasted schematics
+		PasteJournal journal = new PasteJournal();
+		journal.load();
+
 		ArrayList<PasteTask> tasks = new ArrayList<PasteTask>();
-		if ((Bukkit.getPluginManager().getPlugin("WorldGuard") != null) && config.worldRegenSaveWG) {
-			MessageLogger.debug("WG found, adding to paste list");
-			tasks.add(new PasteTask(wtopaste, new WorldGuardDataProvider(wtopaste)));
-		}
-		if ((Bukkit.getPluginManager().getPlugin("Factions") != null) && config.worldRegenSaveFactions) {
-			MessageLogger.debug("Factions found, adding to paste list");
-			tasks.add(new PasteTask(wtopaste, new FactionsDataProvider(wtopaste)));
-		}
-		if ((Bukkit.getPluginManager().getPlugin("GriefPrevention") != null) && config.worldRegenSaveGP) {
-			MessageLogger.debug("GriefPrevention found, adding to paste list");
-			tasks.add(new PasteTask(wtopaste, new GriefPreventionDataProvider(wtopaste)));
-		}
-		if ((Bukkit.getPluginManager().getPlugin("Towny") != null) && config.worldregenSaveTowny) {
-			MessageLogger.debug("Towny found, adding to paste list");
-			tasks.add(new PasteTask(wtopaste, new TownyDataProvider(wtopaste)));
-		}
-		if ((Bukkit.getPluginManager().getPlugin("PreciousStones") != null) && config.worldregenSavePStones) {
-			MessageLogger.debug("PreciousStones found, adding to paste list");
-			tasks.add(new PasteTask(wtopaste, new PStonesDataProvider(wtopaste)));
+		if (StructuresDataProvider.hasSavedStructures()) {
+			MessageLogger.debug("Found merged structures, adding to paste list");
+			tasks.add(new PasteTask(wtopaste, new StructuresDataProvider(), journal, config.worldRegenTickBudget, config.worldRegenLoadThreads));
+		} else {
+			// temp data was saved by older version, paste it per plugin
+			if ((Bukkit.getPluginManager().getPlugin("WorldGuard") != null) && config.worldRegenSaveWG) {
+				MessageLogger.debug("WG found, adding to paste list");
+				tasks.add(new PasteTask(wtopaste, new WorldGuardDataProvider(wtopaste), journal, config.worldRegenTickBudget, config.worldRegenLoadThreads));
+			}
+			if ((Bukkit.getPluginManager().getPlugin("Factions") != null) && config.worldRegenSaveFactions) {
+				MessageLogger.debug("Factions found, adding to paste list");
+				tasks.add(new PasteTask(wtopaste, new FactionsDataProvider(wtopaste), journal, config.worldRegenTickBudget, config.worldRegenLoadThreads));
+			}
+			if ((Bukkit.getPluginManager().getPlugin("GriefPrevention") != null) && config.worldRegenSaveGP) {
+				MessageLogger.debug("GriefPrevention found, adding to paste list");
+				tasks.add(new PasteTask(wtopaste, new GriefPreventionDataProvider(wtopaste), journal, config.worldRegenTickBudget, config.worldRegenLoadThreads));
+			}
+			if ((Bukkit.getPluginManager().getPlugin("Towny") != null) && config.worldregenSaveTowny) {
+				MessageLogger.debug("Towny found, adding to paste list");
+				tasks.add(new PasteTask(wtopaste, new TownyDataProvider(wtopaste), journal, config.worldRegenTickBudget, config.worldRegenLoadThreads));
+			}
+			if ((Bukkit.getPluginManager().getPlugin("PreciousStones") != null) && config.worldregenSavePStones) {
+				MessageLogger.debug("PreciousStones found, adding to paste list");
+				tasks.add(new PasteTask(wtopaste, new PStonesDataProvider(wtopaste), journal, config.worldRegenTickBudget, config.worldRegenLoadThreads));
+			}
 		}
+		int failed = 0;
 		for (PasteTask task : tasks) {
-			task.doPaste();
+			failed += task.doPaste();
+		}
+
+		// keep temp data and journal, so failed schematics can be pasted after restart
+		if (failed > 0) {
+			journal.close();
+			MessageLogger.warn(failed + " schematics failed to load, worldregen temp data was kept, restart server to retry pasting them");
+			return;
 		}
 
 		// clear temp folder
@@ -132,6 +150,8 @@ public class WorldRegenPasteThread extends Thread {
 		FileUtils.deleteDirectory(new File(GlobalConstants.getGPTempFolder()));
 		FileUtils.deleteDirectory(new File(GlobalConstants.getTownyTempFolder()));
 		FileUtils.deleteDirectory(new File(GlobalConstants.getPStonesTempFolder()));
+		FileUtils.deleteDirectory(new File(GlobalConstants.getStructuresTempFolder()));
+		journal.delete();
 		new File(GlobalConstants.getWorldnameFile()).delete();
 		new File(GlobalConstants.getWorldRegenTempFolder()).delete();
 
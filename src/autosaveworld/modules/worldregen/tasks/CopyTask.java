@@ -17,22 +17,20 @@
 
 package autosaveworld.modules.worldregen.tasks;
 
-import org.bukkit.World;
+import java.util.List;
 
-import autosaveworld.modules.worldregen.SchematicOperations;
+import autosaveworld.modules.worldregen.SchematicData.SchematicToSave;
 
 public class CopyTask {
 
-	private World wtoregen;
 	private CopyDataProvider provider;
 
-	public CopyTask(World wtoregen, CopyDataProvider provider) {
-		this.wtoregen = wtoregen;
+	public CopyTask(CopyDataProvider provider) {
 		this.provider = provider;
 	}
 
-	public void doCopy() throws Exception {
-		SchematicOperations.saveToSchematic(wtoregen, provider.getSchematicsToCopy());
+	public List<SchematicToSave> getSchematicsToCopy() throws Exception {
+		return provider.getSchematicsToCopy();
 	}
 
 }
@@ -19,20 +19,28 @@ package autosaveworld.modules.worldregen.tasks;
 
 import org.bukkit.World;
 
+import autosaveworld.modules.worldregen.PasteJournal;
 import autosaveworld.modules.worldregen.SchematicOperations;
 
 public class PasteTask {
 
 	private World wtoregen;
 	private PasteDataProvider provider;
+	private PasteJournal journal;
+	private long tickbudget;
+	private int threads;
 
-	public PasteTask(World wtoregen, PasteDataProvider provider) {
+	public PasteTask(World wtoregen, PasteDataProvider provider, PasteJournal journal, long tickbudget, int threads) {
 		this.wtoregen = wtoregen;
 		this.provider = provider;
+		this.journal = journal;
+		this.tickbudget = tickbudget;
+		this.threads = threads;
 	}
 
-	public void doPaste() throws Exception {
-		SchematicOperations.pasteFromSchematic(wtoregen, provider.getSchematicsToPaste());
+	// returns amount of schematics that failed to load
+	public int doPaste() throws Exception {
+		return SchematicOperations.pasteFromSchematic(wtoregen, provider.getSchematicsToPaste(), journal, tickbudget, threads);
 	}
 
 }
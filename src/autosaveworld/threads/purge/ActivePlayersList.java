@@ -17,7 +17,11 @@
 
 package autosaveworld.threads.purge;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.UUID;
 
 import org.bukkit.Bukkit;
@@ -107,4 +111,34 @@ public class ActivePlayersList {
 		return plactiveNames.contains(name.toLowerCase());
 	}
 
+	// players that became inactive since previous purge (uuid -> name), null if purge is not incremental
+	private HashMap<String, String> plnewlyinactive = null;
+
+	public void setNewlyInactivePlayers(Map<String, String> players) {
+		plnewlyinactive = new HashMap<String, String>(players);
+	}
+
+	public boolean isIncremental() {
+		return plnewlyinactive != null;
+	}
+
+	public Collection<String> getNewlyInactiveUUIDs() {
+		if (plnewlyinactive == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(plnewlyinactive.keySet());
+	}
+
+	public Collection<String> getNewlyInactiveNames() {
+		HashSet<String> names = new HashSet<String>();
+		if (plnewlyinactive != null) {
+			for (String name : plnewlyinactive.values()) {
+				if (!name.isEmpty()) {
+					names.add(name);
+				}
+			}
+		}
+		return names;
+	}
+
 }
@@ -65,11 +65,30 @@ public class AutoPurgeThread extends IntervalTaskThread {
 
 		MessageLogger.debug("Purge started");
 
+		long purgestarttime = System.currentTimeMillis();
+
 		MessageLogger.debug("Finiding active players");
 		ActivePlayersList activelist = new ActivePlayersList(config);
 		activelist.calculateActivePlayers(config.purgeAwayTime * 1000);
 		MessageLogger.debug("Found " + activelist.getActivePlayersCount() + " active players");
 
+		PurgeJournal journal = new PurgeJournal();
+		if (config.purgeIncremental) {
+			journal.load();
+			if (journal.canPurgeIncrementally(config.purgeIncrementalFullPurgeInterval)) {
+				MessageLogger.debug("Finding players that became inactive since last purge");
+				journal.recordNewlyInactivePlayers(activelist, config.purgeAwayTime * 1000);
+				// save journal now, so players won't be lost if purge fails
+				journal.save();
+				activelist.setNewlyInactivePlayers(journal.getPendingPlayers());
+				MessageLogger.debug("Found " + activelist.getNewlyInactiveUUIDs().size() + " newly inactive players, performing incremental purge");
+			} else {
+				MessageLogger.debug("Performing full purge");
+			}
+		}
+
+		PlayerDataFilesList playerfiles = new PlayerDataFilesList();
+
 		ArrayList<DataPurge> purges = new ArrayList<DataPurge>();
 		PluginManager pm = Bukkit.getPluginManager();
 		if ((pm.getPlugin("WorldGuard") != null) && config.purgeWG) {
@@ -90,18 +109,29 @@ public class AutoPurgeThread extends IntervalTaskThread {
 		}
 		if (config.purgePerms) {
 			MessageLogger.debug("Permissions purge is enabled, adding to purge list");
-			purges.add(new PermissionsPurge(config, activelist));
+			purges.add(new PermissionsPurge(config, activelist, playerfiles));
 		}
 		if (config.purgeDat) {
 			MessageLogger.debug("Dat purge is enabled, adding to purge list");
-			purges.add(new DatfilePurge(config, activelist));
+			purges.add(new DatfilePurge(config, activelist, playerfiles));
 		}
 
+		boolean purgesucceeded = true;
 		for (DataPurge datapurge : purges) {
 			try {
 				datapurge.doPurge();
 			} catch (Throwable t) {
 				t.printStackTrace();
+				purgesucceeded = false;
+			}
+		}
+
+		// keep pending players in journal if some purge failed, so they will be purged next time
+		if (config.purgeIncremental) {
+			if (purgesucceeded) {
+				journal.commit(purgestarttime, activelist.isIncremental());
+			} else {
+				MessageLogger.warn("Some purges failed, pending players will be purged again next time");
 			}
 		}
 
@@ -0,0 +1,62 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Bukkit;
+
+import autosaveworld.core.logging.MessageLogger;
+
+public class PlayerDataFilesList {
+
+	public static File getMainWorldFolder() {
+		return Bukkit.getWorlds().get(0).getWorldFolder().getAbsoluteFile();
+	}
+
+	private ArrayList<String> playeruuids;
+
+	// lists playerdata folder only once, all purges that need players files share this list
+	public List<String> getPlayerUUIDs() {
+		if (playeruuids == null) {
+			playeruuids = new ArrayList<String>();
+			File playersdatfolder = new File(getMainWorldFolder(), "playerdata");
+			if (playersdatfolder.isDirectory()) {
+				// stream directory entries instead of creating File for every entry at once
+				try (DirectoryStream<Path> stream = Files.newDirectoryStream(playersdatfolder.toPath(), "*.dat")) {
+					for (Path playerfile : stream) {
+						String filename = playerfile.getFileName().toString();
+						playeruuids.add(filename.substring(0, filename.length() - 4));
+					}
+				} catch (IOException e) {
+					MessageLogger.warn("Failed to list playerdata folder");
+					e.printStackTrace();
+				}
+			}
+			MessageLogger.debug("Found " + playeruuids.size() + " player .dat files");
+		}
+		return playeruuids;
+	}
+
+}
@@ -0,0 +1,98 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import autosaveworld.core.GlobalConstants;
+import autosaveworld.core.logging.MessageLogger;
+
+public class PurgeJournal {
+
+	private long lastPurgeTime = 0;
+	private int incrementalPurgesCount = 0;
+	// players that became inactive but weren't purged yet (uuid -> name)
+	private HashMap<String, String> pending = new HashMap<String, String>();
+
+	public void load() {
+		FileConfiguration journal = YamlConfiguration.loadConfiguration(new File(GlobalConstants.getPurgeJournalPath()));
+		lastPurgeTime = journal.getLong("lastpurge", lastPurgeTime);
+		incrementalPurgesCount = journal.getInt("incrementalpurges", incrementalPurgesCount);
+		pending.clear();
+		ConfigurationSection pendingsection = journal.getConfigurationSection("pending");
+		if (pendingsection != null) {
+			for (String uuid : pendingsection.getKeys(false)) {
+				pending.put(uuid, pendingsection.getString(uuid, ""));
+			}
+		}
+	}
+
+	public void save() {
+		FileConfiguration journal = new YamlConfiguration();
+		journal.set("lastpurge", lastPurgeTime);
+		journal.set("incrementalpurges", incrementalPurgesCount);
+		journal.createSection("pending", pending);
+		try {
+			journal.save(new File(GlobalConstants.getPurgeJournalPath()));
+		} catch (IOException e) {
+			MessageLogger.warn("Could not save purge journal");
+		}
+	}
+
+	public boolean canPurgeIncrementally(int fullPurgeInterval) {
+		return (lastPurgeTime != 0) && (incrementalPurgesCount < fullPurgeInterval);
+	}
+
+	public void recordNewlyInactivePlayers(ActivePlayersList activelist, long awaytime) {
+		// player became inactive since last purge if his last played time crossed the awaytime boundary between last purge and now
+		long boundarystart = lastPurgeTime - awaytime;
+		long boundaryend = System.currentTimeMillis() - awaytime;
+		for (OfflinePlayer offplayer : Bukkit.getOfflinePlayers()) {
+			long lastplayed = offplayer.getLastPlayed();
+			if ((lastplayed >= boundarystart) && (lastplayed < boundaryend)) {
+				String uuid = offplayer.getUniqueId().toString();
+				if (!activelist.isActiveUUID(uuid)) {
+					MessageLogger.debug("Player " + uuid.replace("-", "") + " became inactive since last purge");
+					String name = offplayer.getName();
+					pending.put(uuid, name != null ? name.toLowerCase() : "");
+				}
+			}
+		}
+	}
+
+	public Map<String, String> getPendingPlayers() {
+		return pending;
+	}
+
+	public void commit(long purgestarttime, boolean incremental) {
+		lastPurgeTime = purgestarttime;
+		incrementalPurgesCount = incremental ? incrementalPurgesCount + 1 : 0;
+		pending.clear();
+		save();
+	}
+
+}
@@ -18,41 +18,89 @@
 package autosaveworld.threads.purge.plugins;
 
 import java.io.File;
-
-import org.bukkit.Bukkit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import autosaveworld.config.AutoSaveWorldConfig;
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.threads.purge.ActivePlayersList;
 import autosaveworld.threads.purge.DataPurge;
+import autosaveworld.threads.purge.PlayerDataFilesList;
 
 public class DatfilePurge extends DataPurge {
 
-	public DatfilePurge(AutoSaveWorldConfig config, ActivePlayersList activeplayerslist) {
+	// per player files: folder name and file extension
+	private static final String[][] playerFiles = new String[][] {
+		{"playerdata", ".dat"},
+		{"playerdata", ".dat_old"},
+		{"stats", ".json"},
+		{"stats", ".dat"},
+		{"advancements", ".json"}
+	};
+
+	private PlayerDataFilesList playerfiles;
+
+	public DatfilePurge(AutoSaveWorldConfig config, ActivePlayersList activeplayerslist, PlayerDataFilesList playerfiles) {
 		super(config, activeplayerslist);
+		this.playerfiles = playerfiles;
 	}
 
 	public void doPurge() {
 
 		MessageLogger.debug("Playre .dat file purge started");
 
+		final File worldfolder = PlayerDataFilesList.getMainWorldFolder();
+		Collection<String> playeruuids = activeplayerslist.isIncremental() ? activeplayerslist.getNewlyInactiveUUIDs() : playerfiles.getPlayerUUIDs();
+
+		final AtomicInteger deletedplayers = new AtomicInteger();
+		final AtomicInteger deletedfiles = new AtomicInteger();
+		long starttime = System.currentTimeMillis();
+
+		// delete files in parallel, queue is bounded and if it is full the purge thread deletes files itself
+		int threads = Math.max(1, config.purgeDatThreads);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(threads * 64), new ThreadPoolExecutor.CallerRunsPolicy());
+		for (final String playeruuid : playeruuids) {
+			if (!activeplayerslist.isActiveUUID(playeruuid)) {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						int deleted = deletePlayerFiles(worldfolder, playeruuid);
+						if (deleted > 0) {
+							MessageLogger.debug(playeruuid + " is inactive. Removed " + deleted + " player files");
+							deletedplayers.incrementAndGet();
+							deletedfiles.addAndGet(deleted);
+						}
+					}
+				});
+			}
+		}
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+		}
+
+		long time = Math.max(1, System.currentTimeMillis() - starttime);
+		MessageLogger.debug("Player .dat purge finished, deleted " + deletedfiles.get() + " files of " + deletedplayers.get() + " players in " + time + " ms (" + ((deletedfiles.get() * 1000L) / time) + " files/s)");
+	}
+
+	private int deletePlayerFiles(File worldfolder, String playeruuid) {
 		int deleted = 0;
-		String worldfoldername = Bukkit.getWorlds().get(0).getWorldFolder().getAbsolutePath();
-		File playersdatfolder = new File(worldfoldername + File.separator + "playerdata" + File.separator);
-		File playersstatsfolder = new File(worldfoldername + File.separator + "stats" + File.separator);
-		for (File playerfile : playersdatfolder.listFiles()) {
-			if (playerfile.getName().endsWith(".dat")) {
-				String playeruuid = playerfile.getName().substring(0, playerfile.getName().length() - 4);
-				if (!activeplayerslist.isActiveUUID(playeruuid)) {
-					MessageLogger.debug(playeruuid + " is inactive. Removing dat file");
-					playerfile.delete();
-					new File(playersstatsfolder, playerfile.getName()).delete();
-					deleted += 1;
+		for (String[] playerFile : playerFiles) {
+			try {
+				if (Files.deleteIfExists(new File(new File(worldfolder, playerFile[0]), playeruuid + playerFile[1]).toPath())) {
+					deleted++;
 				}
+			} catch (IOException e) {
+				MessageLogger.warn("Failed to delete " + playerFile[0] + " file of player " + playeruuid);
 			}
 		}
-
-		MessageLogger.debug("Player .dat purge finished, deleted " + deleted + " player .dat files");
+		return deleted;
 	}
 
 }
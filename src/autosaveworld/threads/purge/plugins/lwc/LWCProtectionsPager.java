@@ -0,0 +1,78 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge.plugins.lwc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.griefcraft.model.Protection;
+import com.griefcraft.sql.PhysDB;
+
+public class LWCProtectionsPager {
+
+	private PhysDB db;
+	private int pageSize;
+
+	public LWCProtectionsPager(PhysDB db, int pageSize) {
+		this.db = db;
+		this.pageSize = pageSize;
+	}
+
+	private int lastId = -1;
+	private boolean finished = false;
+
+	public boolean hasNextPage() {
+		return !finished;
+	}
+
+	public List<Protection> nextPage() throws SQLException {
+		ArrayList<Protection> page = new ArrayList<Protection>(pageSize);
+		if (finished) {
+			return page;
+		}
+		// statements are cached by lwc, so we should close only the result set
+		PreparedStatement statement = db.prepare("SELECT id, owner, type, x, y, z, data, blockId, world, password, date, last_accessed FROM " + db.getPrefix() + "protections WHERE id > ? ORDER BY id LIMIT ?");
+		if (statement == null) {
+			throw new SQLException("LWC database connection is not available");
+		}
+		statement.setInt(1, lastId);
+		statement.setInt(2, pageSize);
+		int rows = 0;
+		ResultSet set = statement.executeQuery();
+		try {
+			while (set.next()) {
+				rows++;
+				lastId = set.getInt("id");
+				Protection protection = db.resolveProtection(set);
+				if (protection != null) {
+					page.add(protection);
+				}
+			}
+		} finally {
+			set.close();
+		}
+		if (rows < pageSize) {
+			finished = true;
+		}
+		return page;
+	}
+
+}
@@ -17,7 +17,10 @@
 
 package autosaveworld.threads.purge.plugins.lwc;
 
-import java.util.List;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 
 import autosaveworld.config.AutoSaveWorldConfig;
 import autosaveworld.core.logging.MessageLogger;
@@ -28,6 +31,7 @@ import com.griefcraft.lwc.LWC;
 import com.griefcraft.model.Permission;
 import com.griefcraft.model.Protection;
 import com.griefcraft.model.Protection.Type;
+import com.griefcraft.sql.PhysDB;
 
 public class LWCPurge extends DataPurge {
 
@@ -42,32 +46,27 @@ public class LWCPurge extends DataPurge {
 		int deleted = 0;
 
 		TaskQueue queue = new TaskQueue();
-		List<Protection> protections = LWC.getInstance().getPhysicalDatabase().loadProtections();
-		for (final Protection pr : protections) {
-			LWCMembersClearTask clearTask = new LWCMembersClearTask(pr);
-			if (pr.getType() == Type.PRIVATE) {
-				for (Permission permission : pr.getPermissions()) {
-					if (!activeplayerslist.isActiveName(permission.getName()) && !activeplayerslist.isActiveUUID(permission.getName())) {
-						clearTask.add(permission);
-					}
+		if (activeplayerslist.isIncremental()) {
+			// load only protections owned by newly inactive players
+			for (final Protection pr : loadNewlyInactivePlayersProtections()) {
+				if (purgeProtection(pr, queue)) {
+					deleted++;
 				}
 			}
-			if (!activeplayerslist.isActiveName(pr.getOwner()) && !activeplayerslist.isActiveUUID(pr.getOwner()) && (clearTask.getPlayerToClearCount() == pr.getPermissions().size())) {
-				MessageLogger.debug("Protection owner "+pr.getOwner()+" is inactive");
-				// regen block if needed
-				if (config.purgeLWCDelProtectedBlocks) {
-					LWCRegenTask regenTask = new LWCRegenTask(pr);
-					queue.addTask(regenTask);
+		} else {
+			// stream protections page by page, so we won't have the whole table in memory
+			LWCProtectionsPager pager = new LWCProtectionsPager(LWC.getInstance().getPhysicalDatabase(), config.purgeLWCPageSize);
+			try {
+				while (pager.hasNextPage()) {
+					for (final Protection pr : pager.nextPage()) {
+						if (purgeProtection(pr, queue)) {
+							deleted++;
+						}
+					}
 				}
-				// delete protection
-				LWCDeleteTask deleteTask = new LWCDeleteTask(pr);
-				queue.addTask(deleteTask);
-
-				deleted++;
-			}
-			// cleanup protection members if needed
-			if (clearTask.hasPlayersToClear()) {
-				queue.addTask(clearTask);
+			} catch (SQLException e) {
+				MessageLogger.warn("Failed to load LWC protections page, stopping LWC purge");
+				e.printStackTrace();
 			}
 		}
 		// flush the rest of the queue
@@ -76,4 +75,48 @@ public class LWCPurge extends DataPurge {
 		MessageLogger.debug("LWC purge finished, deleted " + deleted + " inactive protections");
 	}
 
+	private Collection<Protection> loadNewlyInactivePlayersProtections() {
+		PhysDB db = LWC.getInstance().getPhysicalDatabase();
+		LinkedHashMap<Integer, Protection> protections = new LinkedHashMap<Integer, Protection>();
+		ArrayList<String> owners = new ArrayList<String>();
+		owners.addAll(activeplayerslist.getNewlyInactiveUUIDs());
+		owners.addAll(activeplayerslist.getNewlyInactiveNames());
+		for (String owner : owners) {
+			for (Protection pr : db.loadProtectionsByPlayer(owner)) {
+				protections.put(pr.getId(), pr);
+			}
+		}
+		return protections.values();
+	}
+
+	private boolean purgeProtection(Protection pr, TaskQueue queue) {
+		LWCMembersClearTask clearTask = new LWCMembersClearTask(pr);
+		if (pr.getType() == Type.PRIVATE) {
+			for (Permission permission : pr.getPermissions()) {
+				if (!activeplayerslist.isActiveName(permission.getName()) && !activeplayerslist.isActiveUUID(permission.getName())) {
+					clearTask.add(permission);
+				}
+			}
+		}
+		boolean deleted = false;
+		if (!activeplayerslist.isActiveName(pr.getOwner()) && !activeplayerslist.isActiveUUID(pr.getOwner()) && (clearTask.getPlayerToClearCount() == pr.getPermissions().size())) {
+			MessageLogger.debug("Protection owner "+pr.getOwner()+" is inactive");
+			// regen block if needed
+			if (config.purgeLWCDelProtectedBlocks) {
+				LWCRegenTask regenTask = new LWCRegenTask(pr);
+				queue.addTask(regenTask);
+			}
+			// delete protection
+			LWCDeleteTask deleteTask = new LWCDeleteTask(pr);
+			queue.addTask(deleteTask);
+
+			deleted = true;
+		}
+		// cleanup protection members if needed
+		if (clearTask.hasPlayersToClear()) {
+			queue.addTask(clearTask);
+		}
+		return deleted;
+	}
+
 }
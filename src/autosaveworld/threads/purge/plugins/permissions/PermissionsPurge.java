@@ -23,11 +23,15 @@ import autosaveworld.config.AutoSaveWorldConfig;
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.threads.purge.ActivePlayersList;
 import autosaveworld.threads.purge.DataPurge;
+import autosaveworld.threads.purge.PlayerDataFilesList;
 
 public class PermissionsPurge extends DataPurge {
 
-	public PermissionsPurge(AutoSaveWorldConfig config, ActivePlayersList activeplayerslist) {
+	private PlayerDataFilesList playerfiles;
+
+	public PermissionsPurge(AutoSaveWorldConfig config, ActivePlayersList activeplayerslist, PlayerDataFilesList playerfiles) {
 		super(config, activeplayerslist);
+		this.playerfiles = playerfiles;
 	}
 
 	public void doPurge() {
@@ -38,7 +42,7 @@ public class PermissionsPurge extends DataPurge {
 		}
 		if (Bukkit.getPluginManager().getPlugin("Vault") != null) {
 			MessageLogger.debug("Vault found, purging permissions");
-			new VaultPurge().doPurge(activeplayerslist);
+			new VaultPurge().doPurge(activeplayerslist, playerfiles, config.purgePermsTickBudget);
 		}
 	}
 
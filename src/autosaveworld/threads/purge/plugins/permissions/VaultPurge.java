@@ -17,8 +17,8 @@
 
 package autosaveworld.threads.purge.plugins.permissions;
 
-import java.io.File;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.UUID;
 
 import net.milkbowl.vault.permission.Permission;
@@ -29,22 +29,29 @@ import org.bukkit.World;
 
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.threads.purge.ActivePlayersList;
+import autosaveworld.threads.purge.PlayerDataFilesList;
 import autosaveworld.utils.SchedulerUtils;
+import autosaveworld.utils.TickBudgetedTask;
 
 public class VaultPurge {
 
-	public void doPurge(ActivePlayersList activePlayersStorage) {
+	public void doPurge(ActivePlayersList activePlayersStorage, PlayerDataFilesList playerfiles, long tickbudget) {
 
 		int deleted = 0;
 
 		Permission permission = Bukkit.getServicesManager().getRegistration(Permission.class).getProvider();
-		TaskQueue queue = new TaskQueue(permission);
+		TaskQueue queue = new TaskQueue(permission, tickbudget);
 
-		String worldfoldername = Bukkit.getWorlds().get(0).getWorldFolder().getAbsolutePath();
-		File playersdatfolder = new File(worldfoldername + File.separator + "playerdata" + File.separator);
-		for (String playerfile : playersdatfolder.list()) {
-			if (playerfile.endsWith(".dat")) {
-				String playerUUID = playerfile.substring(0, playerfile.length() - 4);
+		if (activePlayersStorage.isIncremental()) {
+			// check only newly inactive players
+			for (String playerUUID : activePlayersStorage.getNewlyInactiveUUIDs()) {
+				if (!activePlayersStorage.isActiveUUID(playerUUID)) {
+					queue.add(playerUUID);
+					deleted += 1;
+				}
+			}
+		} else {
+			for (String playerUUID : playerfiles.getPlayerUUIDs()) {
 				if (!activePlayersStorage.isActiveUUID(playerUUID)) {
 					//delete player permissions
 					queue.add(playerUUID);
@@ -61,9 +68,11 @@ public class VaultPurge {
 	private class TaskQueue {
 
 		private Permission permission;
+		private long tickbudget;
 
-		public TaskQueue(Permission permission) {
+		public TaskQueue(Permission permission, long tickbudget) {
 			this.permission = permission;
+			this.tickbudget = tickbudget;
 		}
 
 		private ArrayList<String> playerstopurge = new ArrayList<String>(70);
@@ -76,24 +85,39 @@ public class VaultPurge {
 		}
 
 		public void flush() {
-			Runnable deleteperms = new Runnable() {
+			final Iterator<String> playersit = playerstopurge.iterator();
+			TickBudgetedTask deleteperms = new TickBudgetedTask() {
 				@Override
-				public void run() {
-					for (String playerUUID : playerstopurge) {
-						MessageLogger.debug(playerUUID + " is inactive. Removing permissions");
-						OfflinePlayer offpl = Bukkit.getOfflinePlayer(UUID.fromString(playerUUID));
-						// remove all player groups
-						for (String group : permission.getGroups()) {
-							permission.playerRemoveGroup((String) null, offpl, group);
-							for (World world : Bukkit.getWorlds()) {
-								permission.playerRemoveGroup(world.getName(), offpl, group);
-							}
-						}
+				public boolean runNext() {
+					if (!playersit.hasNext()) {
+						return false;
+					}
+					String playerUUID = playersit.next();
+					OfflinePlayer offpl = Bukkit.getOfflinePlayer(UUID.fromString(playerUUID));
+					// remove only groups that player actually has
+					boolean removed = removeGroups((String) null, offpl);
+					for (World world : Bukkit.getWorlds()) {
+						removed |= removeGroups(world.getName(), offpl);
 					}
-					playerstopurge.clear();
+					if (removed) {
+						MessageLogger.debug(playerUUID + " is inactive. Removed permissions");
+					}
+					return playersit.hasNext();
 				}
 			};
-			SchedulerUtils.callSyncTaskAndWait(deleteperms);
+			SchedulerUtils.callTickBudgetedTaskAndWait(deleteperms, tickbudget);
+			playerstopurge.clear();
+		}
+
+		private boolean removeGroups(String world, OfflinePlayer offpl) {
+			String[] groups = permission.getPlayerGroups(world, offpl);
+			if ((groups == null) || (groups.length == 0)) {
+				return false;
+			}
+			for (String group : groups) {
+				permission.playerRemoveGroup(world, offpl, group);
+			}
+			return true;
 		}
 
 	}
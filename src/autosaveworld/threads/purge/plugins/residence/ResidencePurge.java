@@ -60,8 +60,12 @@ public class ResidencePurge extends DataPurge {
 				MessageLogger.debug("Owner "+resarea.getOwner()+" is inactive");
 				// regen residence areas if needed
 				if (config.purgeResidenceRegenArea && wepresent) {
-					ResidenceRegenTask regenTask = new ResidenceRegenTask(resarea);
+					ResidenceRegenTask regenTask = new ResidenceRegenTask(resarea, config.purgeRegenTickBudget);
+					// heavy tasks are performed right away, so result is already known here
 					queue.addTask(regenTask);
+					if (regenTask.isFailed()) {
+						continue;
+					}
 				}
 				// delete residence from db
 				ResidenceDeleteTask deleteTask = new ResidenceDeleteTask(resarea);
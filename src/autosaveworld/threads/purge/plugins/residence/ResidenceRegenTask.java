@@ -17,6 +17,9 @@
 
 package autosaveworld.threads.purge.plugins.residence;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import net.t00thpick1.residence.api.areas.ResidenceArea;
 
 import org.bukkit.util.Vector;
@@ -28,8 +31,12 @@ public class ResidenceRegenTask implements ResidencePurgeTask {
 
 	private ResidenceArea resarea;
 
-	public ResidenceRegenTask(ResidenceArea resarea) {
+	private long tickbudget;
+	private boolean failed = false;
+
+	public ResidenceRegenTask(ResidenceArea resarea, long tickbudget) {
 		this.resarea = resarea;
+		this.tickbudget = tickbudget;
 	}
 
 	@Override
@@ -43,7 +50,17 @@ public class ResidenceRegenTask implements ResidencePurgeTask {
 		Vector maxpoint = resarea.getHighLocation().toVector();
 
 		MessageLogger.debug("Regenerating residence " + resarea.getName());
-		WorldEditRegeneration.get().regenerateRegion(resarea.getWorld(), minpoint, maxpoint);
+		Future<Void> completion = WorldEditRegeneration.get().createRegenerationJob(resarea.getWorld(), minpoint, maxpoint).start(tickbudget);
+		try {
+			completion.get();
+		} catch (InterruptedException | ExecutionException e) {
+			failed = true;
+			MessageLogger.warn("Failed to regenerate residence " + resarea.getName() + ", it won't be deleted");
+		}
+	}
+
+	public boolean isFailed() {
+		return failed;
 	}
 
 }
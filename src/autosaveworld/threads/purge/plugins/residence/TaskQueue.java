@@ -29,14 +29,8 @@ public class TaskQueue {
 
 	public void addTask(final ResidencePurgeTask task) {
 		if (task.isHeavyTask()) {
-			SchedulerUtils.callSyncTaskAndWait(
-				new Runnable() {
-					@Override
-					public void run() {
-						task.performTask();
-					}
-				}
-			);
+			// heavy tasks schedule their main thread work by themselves
+			task.performTask();
 		} else {
 			tasks.add(task);
 			if (tasks.size() >= tasksLimit) {
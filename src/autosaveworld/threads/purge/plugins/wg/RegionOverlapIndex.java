@@ -0,0 +1,121 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge.plugins.wg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import com.sk89q.worldedit.BlockVector;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import com.sk89q.worldguard.protection.regions.RegionType;
+
+public class RegionOverlapIndex {
+
+	// size of the grid cell is 128 blocks
+	private static final int CELL_SHIFT = 7;
+
+	private HashMap<Long, ArrayList<ProtectedRegion>> cells = new HashMap<Long, ArrayList<ProtectedRegion>>();
+
+	public RegionOverlapIndex(Collection<ProtectedRegion> regions) {
+		for (ProtectedRegion rg : regions) {
+			add(rg);
+		}
+	}
+
+	public void add(ProtectedRegion rg) {
+		if (rg.getType() == RegionType.GLOBAL) {
+			return;
+		}
+		BlockVector min = rg.getMinimumPoint();
+		BlockVector max = rg.getMaximumPoint();
+		for (int cellx = min.getBlockX() >> CELL_SHIFT; cellx <= (max.getBlockX() >> CELL_SHIFT); cellx++) {
+			for (int cellz = min.getBlockZ() >> CELL_SHIFT; cellz <= (max.getBlockZ() >> CELL_SHIFT); cellz++) {
+				long key = getCellKey(cellx, cellz);
+				ArrayList<ProtectedRegion> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<ProtectedRegion>(4);
+					cells.put(key, cell);
+				}
+				cell.add(rg);
+			}
+		}
+	}
+
+	public void remove(ProtectedRegion rg) {
+		if (rg.getType() == RegionType.GLOBAL) {
+			return;
+		}
+		BlockVector min = rg.getMinimumPoint();
+		BlockVector max = rg.getMaximumPoint();
+		for (int cellx = min.getBlockX() >> CELL_SHIFT; cellx <= (max.getBlockX() >> CELL_SHIFT); cellx++) {
+			for (int cellz = min.getBlockZ() >> CELL_SHIFT; cellz <= (max.getBlockZ() >> CELL_SHIFT); cellz++) {
+				long key = getCellKey(cellx, cellz);
+				ArrayList<ProtectedRegion> cell = cells.get(key);
+				if (cell != null) {
+					cell.remove(rg);
+					if (cell.isEmpty()) {
+						cells.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	public boolean hasOverlappingRegions(ProtectedRegion rg) {
+		BlockVector min = rg.getMinimumPoint();
+		BlockVector max = rg.getMaximumPoint();
+		// find regions which bounding boxes intersect with this region bounding box
+		HashSet<ProtectedRegion> candidates = new HashSet<ProtectedRegion>();
+		for (int cellx = min.getBlockX() >> CELL_SHIFT; cellx <= (max.getBlockX() >> CELL_SHIFT); cellx++) {
+			for (int cellz = min.getBlockZ() >> CELL_SHIFT; cellz <= (max.getBlockZ() >> CELL_SHIFT); cellz++) {
+				ArrayList<ProtectedRegion> cell = cells.get(getCellKey(cellx, cellz));
+				if (cell == null) {
+					continue;
+				}
+				for (ProtectedRegion other : cell) {
+					if ((other != rg) && intersectsBoundingBox(rg, other)) {
+						candidates.add(other);
+					}
+				}
+			}
+		}
+		if (candidates.isEmpty()) {
+			return false;
+		}
+		// now do the precise check only for candidates
+		return !rg.getIntersectingRegions(candidates).isEmpty();
+	}
+
+	private static boolean intersectsBoundingBox(ProtectedRegion rg1, ProtectedRegion rg2) {
+		BlockVector min1 = rg1.getMinimumPoint();
+		BlockVector max1 = rg1.getMaximumPoint();
+		BlockVector min2 = rg2.getMinimumPoint();
+		BlockVector max2 = rg2.getMaximumPoint();
+		return
+			(min1.getBlockX() <= max2.getBlockX()) && (max1.getBlockX() >= min2.getBlockX()) &&
+			(min1.getBlockY() <= max2.getBlockY()) && (max1.getBlockY() >= min2.getBlockY()) &&
+			(min1.getBlockZ() <= max2.getBlockZ()) && (max1.getBlockZ() >= min2.getBlockZ());
+	}
+
+	private static long getCellKey(int cellx, int cellz) {
+		return ((long) cellx << 32) | (cellz & 0xFFFFFFFFL);
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge.plugins.wg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import autosaveworld.threads.purge.ActivePlayersList;
+
+import com.sk89q.worldguard.domains.DefaultDomain;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+
+public class RegionOwnersIndex {
+
+	// player uuid (without dashes) -> regions where this player is owner or member
+	private HashMap<String, ArrayList<ProtectedRegion>> uuidindex = new HashMap<String, ArrayList<ProtectedRegion>>();
+	// lowercase player name -> regions where this player is owner or member
+	private HashMap<String, ArrayList<ProtectedRegion>> nameindex = new HashMap<String, ArrayList<ProtectedRegion>>();
+
+	public RegionOwnersIndex(Collection<ProtectedRegion> regions) {
+		for (ProtectedRegion rg : regions) {
+			if (!rg.hasMembersOrOwners()) {
+				continue;
+			}
+			addDomain(rg, rg.getOwners());
+			addDomain(rg, rg.getMembers());
+		}
+	}
+
+	private void addDomain(ProtectedRegion rg, DefaultDomain domain) {
+		for (String playerName : domain.getPlayers()) {
+			add(nameindex, playerName.toLowerCase(), rg);
+		}
+		for (UUID playerUUID : domain.getUniqueIds()) {
+			add(uuidindex, playerUUID.toString().replace("-", ""), rg);
+		}
+	}
+
+	private void add(HashMap<String, ArrayList<ProtectedRegion>> index, String key, ProtectedRegion rg) {
+		ArrayList<ProtectedRegion> regions = index.get(key);
+		if (regions == null) {
+			regions = new ArrayList<ProtectedRegion>(2);
+			index.put(key, regions);
+		}
+		regions.add(rg);
+	}
+
+	public LinkedHashSet<ProtectedRegion> getRegions(Collection<String> uuids, Collection<String> names) {
+		LinkedHashSet<ProtectedRegion> regions = new LinkedHashSet<ProtectedRegion>();
+		for (String uuid : uuids) {
+			ArrayList<ProtectedRegion> playerregions = uuidindex.get(uuid.replace("-", ""));
+			if (playerregions != null) {
+				regions.addAll(playerregions);
+			}
+		}
+		for (String name : names) {
+			ArrayList<ProtectedRegion> playerregions = nameindex.get(name.toLowerCase());
+			if (playerregions != null) {
+				regions.addAll(playerregions);
+			}
+		}
+		return regions;
+	}
+
+	public LinkedHashSet<ProtectedRegion> getRegionsOfInactivePlayers(ActivePlayersList activelist) {
+		LinkedHashSet<ProtectedRegion> regions = new LinkedHashSet<ProtectedRegion>();
+		for (Entry<String, ArrayList<ProtectedRegion>> entry : uuidindex.entrySet()) {
+			if (!activelist.isActiveUUID(entry.getKey())) {
+				regions.addAll(entry.getValue());
+			}
+		}
+		for (Entry<String, ArrayList<ProtectedRegion>> entry : nameindex.entrySet()) {
+			if (!activelist.isActiveName(entry.getKey())) {
+				regions.addAll(entry.getValue());
+			}
+		}
+		return regions;
+	}
+
+}
@@ -17,23 +17,26 @@
 
 package autosaveworld.threads.purge.plugins.wg;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import org.bukkit.World;
 
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.threads.purge.weregen.WorldEditRegeneration;
 
-import com.sk89q.worldguard.bukkit.WGBukkit;
-import com.sk89q.worldguard.protection.managers.RegionManager;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 
 public class RegionRegenTask implements WGPurgeTask {
 
 	private ProtectedRegion region;
-	private boolean noregenoverlap;
 
-	public RegionRegenTask(ProtectedRegion region, boolean noregenoverlap) {
+	private long tickbudget;
+	private boolean failed = false;
+
+	public RegionRegenTask(ProtectedRegion region, long tickbudget) {
 		this.region = region;
-		this.noregenoverlap = noregenoverlap;
+		this.tickbudget = tickbudget;
 	}
 
 	@Override
@@ -43,11 +46,18 @@ public class RegionRegenTask implements WGPurgeTask {
 
 	@Override
 	public void performTask(World world) {
-		RegionManager rm = WGBukkit.getRegionManager(world);
-		if (!(noregenoverlap && (rm.getApplicableRegions(region).size() > 1))) {
-			MessageLogger.debug("Regenerating region " + region.getId());
-			WorldEditRegeneration.get().regenerateRegion(world, region.getMinimumPoint(), region.getMaximumPoint());
+		MessageLogger.debug("Regenerating region " + region.getId());
+		Future<Void> completion = WorldEditRegeneration.get().createRegenerationJob(world, region.getMinimumPoint(), region.getMaximumPoint()).start(tickbudget);
+		try {
+			completion.get();
+		} catch (InterruptedException | ExecutionException e) {
+			failed = true;
+			MessageLogger.warn("Failed to regenerate region " + region.getId() + ", it won't be deleted");
 		}
 	}
 
+	public boolean isFailed() {
+		return failed;
+	}
+
 }
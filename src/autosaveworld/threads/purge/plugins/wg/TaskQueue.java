@@ -37,14 +37,8 @@ public class TaskQueue {
 
 	public void addTask(final WGPurgeTask task) {
 		if (task.isHeavyTask()) {
-			SchedulerUtils.callSyncTaskAndWait(
-				new Runnable() {
-					@Override
-					public void run() {
-						task.performTask(world);
-					}
-				}
-			);
+			// heavy tasks schedule their main thread work by themselves
+			task.performTask(world);
 		} else {
 			tasks.add(task);
 			if (tasks.size() >= tasksLimit) {
@@ -18,7 +18,7 @@
 package autosaveworld.threads.purge.plugins.wg;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
 import java.util.UUID;
 
 import org.bukkit.Bukkit;
@@ -52,49 +52,14 @@ public class WGPurge extends DataPurge {
 		for (final World w : Bukkit.getWorlds()) {
 			MessageLogger.debug("Checking WG protections in world " + w.getName());
 			final RegionManager m = wg.getRegionManager(w);
-			LinkedList<ProtectedRegion> regions = new LinkedList<ProtectedRegion>(m.getRegions().values());
+			// build owners and overlap indexes once, so we will visit only regions that have inactive players
+			WGPurgePlanner planner = new WGPurgePlanner(new ArrayList<ProtectedRegion>(m.getRegions().values()), config.purgeWGRegenRg && config.purgeWGNoregenOverlap);
+			Collection<ProtectedRegion> regions = planner.getRegionsToCheck(activeplayerslist);
+			MessageLogger.debug("Found " + regions.size() + " regions with inactive players");
 			TaskQueue queue = new TaskQueue(w);
 			for (final ProtectedRegion rg : regions) {
-				MessageLogger.debug("Checking region " + rg.getId());
-				// skip region with zero owners and members
-				if (!rg.hasMembersOrOwners()) {
-					continue;
-				}
-				// check players
-				DomainClearTask domainClearTask = new DomainClearTask(rg);
-				ArrayList<DefaultDomain> domains = new ArrayList<DefaultDomain>();
-				domains.add(rg.getOwners());
-				domains.add(rg.getMembers());
-				for (DefaultDomain domain : domains) {
-					for (String playerName : domain.getPlayers()) {
-						if (!activeplayerslist.isActiveName(playerName)) {
-							MessageLogger.debug(playerName + " is inactive");
-							domainClearTask.add(playerName);
-						}
-					}
-					for (UUID playerUUID : domain.getUniqueIds()) {
-						if (!activeplayerslist.isActiveUUID(playerUUID)) {
-							MessageLogger.debug(playerUUID + " is inactive");
-							domainClearTask.add(playerUUID);
-						}
-					}
-				}
-				// remove region if all owners and members are inactive
-				if (domainClearTask.getPlayersToClearCount() == (rg.getOwners().size() + rg.getMembers().size())) {
-					// regen region if needed
-					if (config.purgeWGRegenRg) {
-						RegionRegenTask regenTask = new RegionRegenTask(rg, config.purgeWGNoregenOverlap);
-						queue.addTask(regenTask);
-					}
-					// delete region
-					RegionDeleteTask deleteTask = new RegionDeleteTask(rg);
-					queue.addTask(deleteTask);
+				if (purgeRegion(rg, planner, queue)) {
 					deletedrg += 1;
-					continue;
-				}
-				// cleanup region default domain if we have something to cleanup
-				if (domainClearTask.hasPlayersToClear()) {
-					queue.addTask(domainClearTask);
 				}
 			}
 			// flush the rest of the queue
@@ -104,4 +69,57 @@ public class WGPurge extends DataPurge {
 		MessageLogger.debug("WG purge finished, deleted " + deletedrg + " inactive regions");
 	}
 
+	private boolean purgeRegion(ProtectedRegion rg, WGPurgePlanner planner, TaskQueue queue) {
+		MessageLogger.debug("Checking region " + rg.getId());
+		// skip region with zero owners and members
+		if (!rg.hasMembersOrOwners()) {
+			return false;
+		}
+		// check players
+		DomainClearTask domainClearTask = new DomainClearTask(rg);
+		ArrayList<DefaultDomain> domains = new ArrayList<DefaultDomain>();
+		domains.add(rg.getOwners());
+		domains.add(rg.getMembers());
+		for (DefaultDomain domain : domains) {
+			for (String playerName : domain.getPlayers()) {
+				if (!activeplayerslist.isActiveName(playerName)) {
+					MessageLogger.debug(playerName + " is inactive");
+					domainClearTask.add(playerName);
+				}
+			}
+			for (UUID playerUUID : domain.getUniqueIds()) {
+				if (!activeplayerslist.isActiveUUID(playerUUID)) {
+					MessageLogger.debug(playerUUID + " is inactive");
+					domainClearTask.add(playerUUID);
+				}
+			}
+		}
+		// remove region if all owners and members are inactive
+		if (domainClearTask.getPlayersToClearCount() == (rg.getOwners().size() + rg.getMembers().size())) {
+			// regen region if needed
+			if (config.purgeWGRegenRg) {
+				if (config.purgeWGNoregenOverlap && planner.hasOverlappingRegions(rg)) {
+					MessageLogger.debug("Region " + rg.getId() + " overlaps other regions, not regenerating it");
+				} else {
+					RegionRegenTask regenTask = new RegionRegenTask(rg, config.purgeRegenTickBudget);
+					// heavy tasks are performed right away, so result is already known here
+					queue.addTask(regenTask);
+					if (regenTask.isFailed()) {
+						return false;
+					}
+				}
+			}
+			// delete region
+			RegionDeleteTask deleteTask = new RegionDeleteTask(rg);
+			queue.addTask(deleteTask);
+			planner.onRegionDelete(rg);
+			return true;
+		}
+		// cleanup region default domain if we have something to cleanup
+		if (domainClearTask.hasPlayersToClear()) {
+			queue.addTask(domainClearTask);
+		}
+		return false;
+	}
+
 }
@@ -0,0 +1,56 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge.plugins.wg;
+
+import java.util.Collection;
+
+import autosaveworld.threads.purge.ActivePlayersList;
+
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+
+public class WGPurgePlanner {
+
+	private RegionOwnersIndex ownersindex;
+	private RegionOverlapIndex overlapindex;
+
+	public WGPurgePlanner(Collection<ProtectedRegion> regions, boolean buildoverlapindex) {
+		ownersindex = new RegionOwnersIndex(regions);
+		if (buildoverlapindex) {
+			overlapindex = new RegionOverlapIndex(regions);
+		}
+	}
+
+	public Collection<ProtectedRegion> getRegionsToCheck(ActivePlayersList activelist) {
+		if (activelist.isIncremental()) {
+			return ownersindex.getRegions(activelist.getNewlyInactiveUUIDs(), activelist.getNewlyInactiveNames());
+		}
+		// regions without inactive owners or members won't change after purge, so no need to visit them
+		return ownersindex.getRegionsOfInactivePlayers(activelist);
+	}
+
+	public boolean hasOverlappingRegions(ProtectedRegion rg) {
+		return (overlapindex != null) && overlapindex.hasOverlappingRegions(rg);
+	}
+
+	public void onRegionDelete(ProtectedRegion rg) {
+		if (overlapindex != null) {
+			overlapindex.remove(rg);
+		}
+	}
+
+}
@@ -17,31 +17,15 @@
 
 package autosaveworld.threads.purge.weregen;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-
-import org.bukkit.Material;
 import org.bukkit.World;
 
-import autosaveworld.threads.purge.weregen.UtilClasses.BlockToPlaceBack;
-import autosaveworld.threads.purge.weregen.UtilClasses.ItemSpawnListener;
 import autosaveworld.threads.purge.weregen.WorldEditRegeneration.WorldEditRegenrationInterface;
-import autosaveworld.utils.ListenerUtils;
 
-import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.Vector;
-import com.sk89q.worldedit.Vector2D;
-import com.sk89q.worldedit.blocks.BaseBlock;
-import com.sk89q.worldedit.blocks.BlockType;
-import com.sk89q.worldedit.bukkit.BukkitWorld;
-import com.sk89q.worldedit.regions.CuboidRegion;
-import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldguard.bukkit.BukkitUtil;
 
 public class BukkitAPIWorldEditRegeneration implements WorldEditRegenrationInterface {
 
-	private ItemSpawnListener itemremover = new ItemSpawnListener();
-
 	@Override
 	public void regenerateRegion(World world, org.bukkit.util.Vector minpoint, org.bukkit.util.Vector maxpoint) {
 		Vector minbpoint = BukkitUtil.toVector(minpoint);
@@ -50,112 +34,20 @@ public class BukkitAPIWorldEditRegeneration implements WorldEditRegenrationInter
 	}
 
 	@Override
-	@SuppressWarnings("deprecation")
 	public void regenerateRegion(World world, Vector minpoint, Vector maxpoint) {
-		BukkitWorld bw = new BukkitWorld(world);
-		EditSession es = new EditSession(bw, Integer.MAX_VALUE);
-		es.setFastMode(true);
-		int maxy = bw.getMaxY() + 1;
-		Region region = new CuboidRegion(bw, minpoint, maxpoint);
-		LinkedList<BlockToPlaceBack> placeBackQueue = new LinkedList<BlockToPlaceBack>();
-
-		// register listener that will prevent trash items from spawning
-		ListenerUtils.registerListener(itemremover);
-
-		// first save all blocks that are inside affected chunks but outside the region
-		for (Vector2D chunk : region.getChunks()) {
-			Vector min = new Vector(chunk.getBlockX() * 16, 0, chunk.getBlockZ() * 16);
-			for (int x = 0; x < 16; ++x) {
-				for (int y = 0; y < maxy; ++y) {
-					for (int z = 0; z < 16; ++z) {
-						Vector pt = min.add(x, y, z);
-						if (!region.contains(pt)) {
-							placeBackQueue.add(new BlockToPlaceBack(pt, es.getBlock(pt)));
-						}
-					}
-				}
-			}
+		RegenerationJob job = createRegenerationJob(world, minpoint, maxpoint);
+		while (job.runNext()) {
 		}
-
-		//TODO: Set blocks that has tileentity to air first
-
-		// regenerate all affected chunks
-		for (Vector2D chunk : region.getChunks()) {
-			try {
-				world.regenerateChunk(chunk.getBlockX(), chunk.getBlockZ());
-			} catch (Throwable t) {
-				t.printStackTrace();
-			}
-		}
-
-		// set all blocks that were outside the region back
-		for (PlaceBackStage stage : placeBackStages) {
-			stage.processBlockPlaceBack(world, es, placeBackQueue);
-		}
-
-		// unregister listener that prevents item drop
-		ListenerUtils.unregisterListener(itemremover);
 	}
 
-	private static PlaceBackStage[] placeBackStages = new PlaceBackStage[] {
-		// normal stage place back
-		new PlaceBackStage(new PlaceBackStage.PlaceBackCheck() {
-			@Override
-			public boolean shouldPlaceBack(BaseBlock block) {
-				return !BlockType.shouldPlaceLast(block.getId()) && !BlockType.shouldPlaceFinal(block.getId());
-			}
-		}),
-		// last stage place back
-		new PlaceBackStage(new PlaceBackStage.PlaceBackCheck() {
-			@Override
-			public boolean shouldPlaceBack(BaseBlock block) {
-				return BlockType.shouldPlaceLast(block.getId());
-			}
-		}),
-		// final stage place back
-		new PlaceBackStage(new PlaceBackStage.PlaceBackCheck() {
-			@Override
-			public boolean shouldPlaceBack(BaseBlock block) {
-				return BlockType.shouldPlaceFinal(block.getId());
-			}
-		})
-	};
-
-	private static class PlaceBackStage {
-
-		public static interface PlaceBackCheck {
-			public boolean shouldPlaceBack(BaseBlock block);
-		}
-
-		private PlaceBackCheck check;
-
-		public PlaceBackStage(PlaceBackCheck check) {
-			this.check = check;
-		}
-
-		public void processBlockPlaceBack(World world, EditSession es, LinkedList<BlockToPlaceBack> placeBackQueue) {
-			Iterator<BlockToPlaceBack> entryit = placeBackQueue.iterator();
-			while (entryit.hasNext()) {
-				BlockToPlaceBack blockToPlaceBack = entryit.next();
-				BaseBlock block = blockToPlaceBack.getBlock();
-				if (check.shouldPlaceBack(block)) {
-					Vector pt = blockToPlaceBack.getPosition();
-					try {
-						// set block to air to fix one really weird problem
-						world.getBlockAt(pt.getBlockX(), pt.getBlockY(), pt.getBlockZ()).setType(Material.AIR);
-						// set block back if it is not air
-						if (!block.isAir()) {
-							es.rawSetBlock(pt, block);
-						}
-					} catch (Throwable t) {
-						t.printStackTrace();
-					} finally {
-						entryit.remove();
-					}
-				}
-			}
-		}
+	@Override
+	public RegenerationJob createRegenerationJob(World world, org.bukkit.util.Vector minpoint, org.bukkit.util.Vector maxpoint) {
+		return createRegenerationJob(world, BukkitUtil.toVector(minpoint), BukkitUtil.toVector(maxpoint));
+	}
 
+	@Override
+	public RegenerationJob createRegenerationJob(World world, Vector minpoint, Vector maxpoint) {
+		return new RegenerationJob(world, minpoint, maxpoint);
 	}
 
 }
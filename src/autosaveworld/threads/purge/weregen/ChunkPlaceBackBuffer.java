@@ -0,0 +1,198 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge.weregen;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.blocks.BaseBlock;
+import com.sk89q.worldedit.blocks.BlockType;
+
+// Holds blocks of one chunk that are outside the regenerated region
+// Blocks are stored as packed ints already split by place back stage, only tile entities are stored as BaseBlock
+public class ChunkPlaceBackBuffer {
+
+	public static final int STAGE_NORMAL = 0;
+	public static final int STAGE_LAST = 1;
+	public static final int STAGE_FINAL = 2;
+	public static final int STAGES_COUNT = 3;
+
+	private final int chunkX;
+	private final int chunkZ;
+
+	private final int[][] positions = new int[STAGES_COUNT][];
+	private final int[][] blocks = new int[STAGES_COUNT][];
+	private final int[] sizes = new int[STAGES_COUNT];
+
+	private final HashMap<Integer, BaseBlock> tileEntityBlocks = new HashMap<Integer, BaseBlock>();
+
+	private ChunkPlaceBackBuffer(int chunkX, int chunkZ) {
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+		positions[STAGE_NORMAL] = new int[4096];
+		blocks[STAGE_NORMAL] = new int[4096];
+		for (int stage = STAGE_LAST; stage < STAGES_COUNT; stage++) {
+			positions[stage] = new int[64];
+			blocks[stage] = new int[64];
+		}
+	}
+
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	public int getChunkZ() {
+		return chunkZ;
+	}
+
+	public int size() {
+		int size = 0;
+		for (int stagesize : sizes) {
+			size += stagesize;
+		}
+		return size;
+	}
+
+	@SuppressWarnings("deprecation")
+	public static ChunkPlaceBackBuffer capture(World world, EditSession es, int chunkX, int chunkZ, int maxy, Vector regionmin, Vector regionmax) {
+		ChunkPlaceBackBuffer buffer = new ChunkPlaceBackBuffer(chunkX, chunkZ);
+		int minx = regionmin.getBlockX() - (chunkX << 4);
+		int maxx = regionmax.getBlockX() - (chunkX << 4);
+		int miny = regionmin.getBlockY();
+		int maxry = regionmax.getBlockY();
+		int minz = regionmin.getBlockZ() - (chunkZ << 4);
+		int maxz = regionmax.getBlockZ() - (chunkZ << 4);
+		Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+		ChunkSnapshot snapshot = chunk.getChunkSnapshot();
+		for (int x = 0; x < 16; ++x) {
+			boolean xinside = (x >= minx) && (x <= maxx);
+			for (int z = 0; z < 16; ++z) {
+				boolean xzinside = xinside && (z >= minz) && (z <= maxz);
+				for (int y = 0; y < maxy; ++y) {
+					if (xzinside && (y >= miny) && (y <= maxry)) {
+						continue;
+					}
+					buffer.add(packPosition(x, y, z), snapshot.getBlockTypeId(x, y, z), snapshot.getBlockData(x, y, z));
+				}
+			}
+		}
+		// tile entities need their nbt data, so save them using worldedit
+		for (BlockState tileentity : chunk.getTileEntities()) {
+			int x = tileentity.getX() & 0xF;
+			int y = tileentity.getY();
+			int z = tileentity.getZ() & 0xF;
+			if ((x >= minx) && (x <= maxx) && (y >= miny) && (y <= maxry) && (z >= minz) && (z <= maxz)) {
+				continue;
+			}
+			buffer.tileEntityBlocks.put(packPosition(x, y, z), es.getBlock(new Vector(tileentity.getX(), y, tileentity.getZ())));
+		}
+		return buffer;
+	}
+
+	private void add(int position, int id, int data) {
+		int stage = STAGE_NORMAL;
+		if (BlockType.shouldPlaceLast(id)) {
+			stage = STAGE_LAST;
+		} else if (BlockType.shouldPlaceFinal(id)) {
+			stage = STAGE_FINAL;
+		}
+		int size = sizes[stage];
+		if (size == positions[stage].length) {
+			positions[stage] = Arrays.copyOf(positions[stage], size << 1);
+			blocks[stage] = Arrays.copyOf(blocks[stage], size << 1);
+		}
+		positions[stage][size] = position;
+		blocks[stage][size] = (id << 4) | (data & 0xF);
+		sizes[stage] = size + 1;
+	}
+
+	// places back blocks of the given stage, returns amount of blocks that were actually written
+	@SuppressWarnings("deprecation")
+	public int placeBack(World world, EditSession es, int stage) {
+		int written = 0;
+		int[] stagepositions = positions[stage];
+		int[] stageblocks = blocks[stage];
+		int size = sizes[stage];
+		// snapshot current chunk state, so we can skip blocks that are already the same
+		// snapshot is only kept while this stage is placed back, so only one chunk snapshot exists at a time
+		ChunkSnapshot current = null;
+		HashSet<Integer> currentTileEntities = null;
+		if (size > 0) {
+			Chunk chunk = world.getChunkAt(chunkX, chunkZ);
+			current = chunk.getChunkSnapshot();
+			currentTileEntities = new HashSet<Integer>();
+			for (BlockState tileentity : chunk.getTileEntities()) {
+				currentTileEntities.add(packPosition(tileentity.getX() & 0xF, tileentity.getY(), tileentity.getZ() & 0xF));
+			}
+		}
+		int basex = chunkX << 4;
+		int basez = chunkZ << 4;
+		for (int i = 0; i < size; i++) {
+			int position = stagepositions[i];
+			int lx = position & 0xF;
+			int lz = (position >> 4) & 0xF;
+			int y = position >>> 8;
+			int id = stageblocks[i] >>> 4;
+			int data = stageblocks[i] & 0xF;
+			BaseBlock tileblock = tileEntityBlocks.get(position);
+			boolean hadtileentity = currentTileEntities.contains(position);
+			// skip blocks that are already the same, tile entities always need to be written because of nbt
+			if ((tileblock == null) && !hadtileentity && (current.getBlockTypeId(lx, y, lz) == id) && (current.getBlockData(lx, y, lz) == data)) {
+				continue;
+			}
+			int x = basex + lx;
+			int z = basez + lz;
+			try {
+				// tile entity left by regeneration should be removed first, otherwise its data will stay
+				if (hadtileentity || (tileblock != null)) {
+					world.getBlockAt(x, y, z).setType(Material.AIR, false);
+				}
+				// set block back
+				if ((id != BlockType.AIR.getID()) || !hadtileentity) {
+					es.rawSetBlock(new Vector(x, y, z), tileblock != null ? tileblock : new BaseBlock(id, data));
+				}
+				written++;
+			} catch (Throwable t) {
+				t.printStackTrace();
+			}
+		}
+		// free memory early, this stage won't be used again
+		positions[stage] = null;
+		blocks[stage] = null;
+		sizes[stage] = 0;
+		if (stage == STAGE_FINAL) {
+			// resend chunk once after all blocks were placed back
+			world.refreshChunk(chunkX, chunkZ);
+		}
+		return written;
+	}
+
+	private static int packPosition(int x, int y, int z) {
+		return (y << 8) | (z << 4) | x;
+	}
+
+}
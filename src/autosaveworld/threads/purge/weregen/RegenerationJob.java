@@ -0,0 +1,179 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.purge.weregen;
+
+import java.util.ArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.World;
+
+import autosaveworld.core.logging.MessageLogger;
+import autosaveworld.threads.purge.weregen.UtilClasses.ItemSpawnListener;
+import autosaveworld.utils.ListenerUtils;
+import autosaveworld.utils.SchedulerUtils;
+import autosaveworld.utils.TickBudgetedTask;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.Vector;
+import com.sk89q.worldedit.Vector2D;
+import com.sk89q.worldedit.bukkit.BukkitWorld;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+
+// Regenerates region chunk by chunk, every call to runNext fully processes one chunk
+// Blocks of the chunk outside region are saved, chunk is regenerated and saved blocks are placed back in the same call,
+// so changes made outside region between ticks are never overwritten by stale blocks
+public class RegenerationJob implements TickBudgetedTask {
+
+	private final World world;
+	private final BukkitWorld bw;
+	private final Region region;
+	private final ArrayList<Vector2D> chunks;
+	private final ItemSpawnListener itemremover = new ItemSpawnListener();
+	private final JobCompletion completion = new JobCompletion();
+
+	private EditSession es;
+	private int chunkIndex = 0;
+	private boolean done = false;
+
+	private long savedBlocks = 0;
+	private long writtenBlocks = 0;
+	private long placeBackNanos = 0;
+
+	public RegenerationJob(World world, Vector minpoint, Vector maxpoint) {
+		this.world = world;
+		this.bw = new BukkitWorld(world);
+		this.region = new CuboidRegion(bw, minpoint, maxpoint);
+		this.chunks = new ArrayList<Vector2D>(region.getChunks());
+	}
+
+	// schedules job to run on main thread using not more than budgetmillis each tick
+	public Future<Void> start(long budgetmillis) {
+		SchedulerUtils.scheduleTickBudgetedTask(this, budgetmillis, completion);
+		return completion;
+	}
+
+	public Future<Void> getCompletion() {
+		return completion;
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	public int getProcessedChunks() {
+		return chunkIndex;
+	}
+
+	public int getTotalChunks() {
+		return chunks.size();
+	}
+
+	@Override
+	public boolean runNext() {
+		if (done) {
+			return false;
+		}
+		try {
+			return processNext();
+		} catch (Throwable t) {
+			// job can't continue
+			fail(t);
+			return false;
+		}
+	}
+
+	private boolean processNext() {
+		if (chunkIndex >= chunks.size()) {
+			finish();
+			return false;
+		}
+		if (es == null) {
+			es = new EditSession(bw, Integer.MAX_VALUE);
+			es.setFastMode(true);
+			ListenerUtils.registerListener(itemremover);
+		}
+		Vector2D chunk = chunks.get(chunkIndex);
+		// save all blocks that are inside affected chunk but outside the region
+		ChunkPlaceBackBuffer buffer;
+		try {
+			buffer = ChunkPlaceBackBuffer.capture(world, es, chunk.getBlockX(), chunk.getBlockZ(), bw.getMaxY() + 1, region.getMinimumPoint(), region.getMaximumPoint());
+		} catch (Throwable t) {
+			// this chunk is not regenerated yet, so it is safe to just abort
+			fail(t);
+			return false;
+		}
+		savedBlocks += buffer.size();
+		// prevent trash items from spawning, listener is active only while chunk is processed, so other drops are not affected
+		itemremover.setActive(true);
+		try {
+			// regenerate chunk
+			try {
+				world.regenerateChunk(chunk.getBlockX(), chunk.getBlockZ());
+			} catch (Throwable t) {
+				t.printStackTrace();
+			}
+			// set blocks that were outside the region back
+			long start = System.nanoTime();
+			for (int stage = 0; stage < ChunkPlaceBackBuffer.STAGES_COUNT; stage++) {
+				writtenBlocks += buffer.placeBack(world, es, stage);
+			}
+			placeBackNanos += System.nanoTime() - start;
+		} finally {
+			itemremover.setActive(false);
+		}
+		if (++chunkIndex == chunks.size()) {
+			finish();
+			long placeBackMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(placeBackNanos));
+			MessageLogger.debug("Regenerated " + chunks.size() + " chunks, placed back " + writtenBlocks + " of " + savedBlocks + " saved blocks in " + placeBackMillis + " ms (" + ((savedBlocks * 1000) / placeBackMillis) + " blocks/s)");
+			return false;
+		}
+		return true;
+	}
+
+	private void finish() {
+		done = true;
+		ListenerUtils.unregisterListener(itemremover);
+	}
+
+	private void fail(Throwable t) {
+		t.printStackTrace();
+		finish();
+		completion.fail(t);
+	}
+
+	// completes with exception if job failed, so callers won't treat failed regeneration as success
+	private static class JobCompletion extends FutureTask<Void> {
+
+		public JobCompletion() {
+			super(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}, null);
+		}
+
+		public void fail(Throwable t) {
+			setException(t);
+		}
+
+	}
+
+}
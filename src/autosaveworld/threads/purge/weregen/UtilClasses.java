@@ -21,37 +21,22 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.ItemSpawnEvent;
 
-import com.sk89q.worldedit.Vector;
-import com.sk89q.worldedit.blocks.BaseBlock;
-
 public class UtilClasses {
 
-	public static class BlockToPlaceBack {
-
-		private Vector position;
-
-		private BaseBlock block;
+	public static class ItemSpawnListener implements Listener {
 
-		public BlockToPlaceBack(Vector position, BaseBlock block) {
-			this.position = position;
-			this.block = block;
-		}
+		// items are removed only while active, so listener can stay registered without affecting other drops
+		private boolean active = false;
 
-		public Vector getPosition() {
-			return position;
+		public void setActive(boolean active) {
+			this.active = active;
 		}
 
-		public BaseBlock getBlock() {
-			return block;
-		}
-
-	}
-
-	public static class ItemSpawnListener implements Listener {
-
 		@EventHandler
 		public void onItemSpawn(ItemSpawnEvent event) {
-			event.setCancelled(true);
+			if (active) {
+				event.setCancelled(true);
+			}
 		}
 
 	}
@@ -36,6 +36,10 @@ public class WorldEditRegeneration {
 		public void regenerateRegion(World world, org.bukkit.util.Vector minpoint, org.bukkit.util.Vector maxpoint);
 
 		public void regenerateRegion(World world, Vector minpoint, Vector maxpoint);
+
+		public RegenerationJob createRegenerationJob(World world, org.bukkit.util.Vector minpoint, org.bukkit.util.Vector maxpoint);
+
+		public RegenerationJob createRegenerationJob(World world, Vector minpoint, Vector maxpoint);
 	}
 
 }
@@ -17,23 +17,34 @@
 
 package autosaveworld.threads.restart;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 
 import autosaveworld.config.AutoSaveWorldConfig;
 import autosaveworld.config.AutoSaveWorldConfigMSG;
+import autosaveworld.core.AutoSaveWorld;
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.utils.CommandUtils;
+import autosaveworld.utils.ListenerUtils;
 import autosaveworld.utils.SchedulerUtils;
 
 public class AutoRestartThread extends Thread {
 
+	private AutoSaveWorld plugin;
 	private AutoSaveWorldConfig config;
 	private AutoSaveWorldConfigMSG configmsg;
 	private RestartJVMshutdownhook jvmsh;
 
-	public AutoRestartThread(AutoSaveWorldConfig config, AutoSaveWorldConfigMSG configmsg, RestartJVMshutdownhook jvmsh) {
+	public AutoRestartThread(AutoSaveWorld plugin, AutoSaveWorldConfig config, AutoSaveWorldConfigMSG configmsg, RestartJVMshutdownhook jvmsh) {
+		this.plugin = plugin;
 		this.config = config;
 		this.configmsg = configmsg;
 		this.jvmsh = jvmsh;
@@ -70,22 +81,40 @@ public class AutoRestartThread extends Thread {
 				run = false;
 				command = false;
 
+				// stop accepting new players and spread players saving over countdown, so shutdown won't have to save everyone at once
+				ArrayList<String> playerstosave = new ArrayList<String>();
+				if (config.autoRestartDrain) {
+					ListenerUtils.registerListener(new RestartDrainListener(configmsg));
+					for (Player player : Bukkit.getOnlinePlayers()) {
+						playerstosave.add(player.getName());
+					}
+				}
+
 				if (config.autoRestartCountdown && !skipcountdown) {
 					for (int i = config.autoRestartCountdownSeconds.get(0); i > 0; i--) {
 						if (config.autoRestartCountdownSeconds.contains(i)) {
 							MessageLogger.broadcast(configmsg.messageAutoRestartCountdown.replace("{SECONDS}", String.valueOf(i)), true);
 						}
+						savePlayersBatch(playerstosave);
 						try {
 							Thread.sleep(1000);
 						} catch (InterruptedException e) {
 						}
 					}
 				}
+				// save players that countdown didn't get to (or all of them if there was no countdown), each batch is a separate sync task so they are still spread over ticks
+				while (!playerstosave.isEmpty()) {
+					savePlayersBatch(playerstosave);
+				}
 
 				MessageLogger.broadcast(configmsg.messageAutoRestart, config.autoRestartBroadcast);
 
 				MessageLogger.debug("AutoRestarting server");
 
+				if (config.autoRestartDrain && !config.autoRestartDrainFallbackServer.isEmpty()) {
+					sendPlayersToFallback();
+				}
+
 				if (!config.autoRestartJustStop) {
 					jvmsh.setPath(config.autoRestartScriptPath);
 					Runtime.getRuntime().addShutdownHook(jvmsh);
@@ -113,6 +142,69 @@ public class AutoRestartThread extends Thread {
 
 	}
 
+	private void savePlayersBatch(final ArrayList<String> playerstosave) {
+		if (playerstosave.isEmpty()) {
+			return;
+		}
+		SchedulerUtils.callSyncTaskAndWait(new Runnable() {
+			@Override
+			public void run() {
+				Iterator<String> iterator = playerstosave.iterator();
+				int saved = 0;
+				while (iterator.hasNext() && (saved < config.autoRestartDrainSaveBatch)) {
+					Player player = Bukkit.getPlayerExact(iterator.next());
+					iterator.remove();
+					if (player != null) {
+						player.saveData();
+						saved++;
+					}
+				}
+			}
+		}, 10);
+	}
+
+	// moves players to the fallback server using bungeecord plugin messaging channel
+	private void sendPlayersToFallback() {
+		final byte[] message;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeUTF("Connect");
+			out.writeUTF(config.autoRestartDrainFallbackServer);
+			out.close();
+			message = bytes.toByteArray();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		SchedulerUtils.callSyncTaskAndWait(new Runnable() {
+			@Override
+			public void run() {
+				Bukkit.getMessenger().registerOutgoingPluginChannel(plugin, "BungeeCord");
+				for (Player player : Bukkit.getOnlinePlayers()) {
+					player.sendPluginMessage(plugin, "BungeeCord", message);
+				}
+			}
+		}, 10);
+		// give proxy some time to move players
+		final AtomicBoolean empty = new AtomicBoolean(false);
+		for (int i = 0; i < 5; i++) {
+			SchedulerUtils.callSyncTaskAndWait(new Runnable() {
+				@Override
+				public void run() {
+					empty.set(Bukkit.getOnlinePlayers().isEmpty());
+				}
+			}, 10);
+			if (empty.get()) {
+				break;
+			}
+			try {
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
 	private final SimpleDateFormat sdf = new SimpleDateFormat("HH:mm");
 	private String getCurTime() {
 		String curtime = sdf.format(System.currentTimeMillis());
@@ -17,20 +17,21 @@
 
 package autosaveworld.threads.restart;
 
-import java.lang.management.ManagementFactory;
-import java.lang.management.MonitorInfo;
-import java.lang.management.ThreadInfo;
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
-import org.bukkit.World;
-import org.bukkit.plugin.Plugin;
 import org.spigotmc.AsyncCatcher;
 
 import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.core.GlobalConstants;
 import autosaveworld.core.logging.MessageLogger;
 import autosaveworld.utils.SchedulerUtils;
 
@@ -48,12 +49,17 @@ public class CrashRestartThread extends Thread {
 
 	public void stopThread() {
 		run = false;
+		if (profiler != null) {
+			profiler.stopThread();
+		}
 	}
 
 	private volatile boolean run = true;
 
 	protected long syncticktime = 0;
 
+	private TickProfiler profiler;
+
 	@SuppressWarnings("deprecation")
 	@Override
 	public void run() {
@@ -72,26 +78,57 @@ public class CrashRestartThread extends Thread {
 		}
 
 		MessageLogger.debug("Running crashrestart checker");
+		if (config.tickProfilerEnabled) {
+			profiler = new TickProfiler(bukkitMainThread, config);
+			profiler.start();
+		}
 		// schedule sync task in, this will provide us info about when the last server tick occured
+		// profiler needs heartbeat every tick, otherwise once per second is enough
 		SchedulerUtils.scheduleSyncRepeatingTask(new Runnable() {
 			@Override
 			public void run() {
 				syncticktime = System.currentTimeMillis();
+				if (profiler != null) {
+					profiler.onTick();
+				}
 			}
-		}, 0, 20);
+		}, 0, profiler != null ? 1 : 20);
 
+		StallSampler stallsampler = null;
 		while (run) {
 			long diff = System.currentTimeMillis() - syncticktime;
+			if ((syncticktime != 0) && (diff >= (config.crashRestartStallThreshold * 1000L)) && (stallsampler == null)) {
+				// main thread stalled, start sampling it, so we will know what caused stall
+				MessageLogger.debug("Main thread stalled for " + (diff / 1000) + " seconds, sampling it");
+				stallsampler = new StallSampler(bukkitMainThread, config.crashRestartStallSampleInterval);
+				stallsampler.start();
+			} else if ((stallsampler != null) && (diff < (config.crashRestartStallThreshold * 1000L))) {
+				// main thread recovered, still write report
+				stallsampler.stopSampling();
+				stallsampler.writeReport(getStallReportFile());
+				stallsampler = null;
+			}
 			if ((syncticktime != 0) && (diff >= (config.crashRestartTimeout * 1000L))) {
 				run = false;
 
 				if (config.crashRestartEnabled) {
 					Logger log = Bukkit.getLogger();
 					log.log(Level.SEVERE, "Server has stopped responding.");
-					log.log(Level.SEVERE, "Dumping threads info");
-					ThreadInfo[] threads = ManagementFactory.getThreadMXBean().dumpAllThreads(true, true);
-					for (ThreadInfo thread : threads) {
-						dumpThread(thread, log);
+					if (stallsampler != null) {
+						stallsampler.stopSampling();
+						File reportfile = getStallReportFile();
+						Future<Void> report = stallsampler.writeReport(reportfile);
+						log.log(Level.SEVERE, "Main thread most common stack (" + stallsampler.getSamplesCount() + " samples taken):");
+						for (StackTraceElement frame : stallsampler.getTopStack()) {
+							log.log(Level.SEVERE, "\t" + frame);
+						}
+						// make sure that report is written before restart
+						try {
+							report.get(5, TimeUnit.SECONDS);
+							log.log(Level.SEVERE, "Stall report saved to " + reportfile.getPath());
+						} catch (InterruptedException | ExecutionException | TimeoutException e) {
+							log.log(Level.SEVERE, "Failed to save stall report");
+						}
 					}
 					log.log(Level.SEVERE, "Restarting Server");
 
@@ -109,31 +146,8 @@ public class CrashRestartThread extends Thread {
 						AsyncCatcher.enabled = false;
 					} catch (Throwable t) {
 					}
-					// unload plugins
-					Plugin[] plugins = Bukkit.getPluginManager().getPlugins();
-					for (int i = plugins.length - 1; i >= 0; i--) {
-						try {
-							Bukkit.getPluginManager().disablePlugin(plugins[i]);
-						} catch (Throwable e) {
-							e.printStackTrace();
-						}
-					}
-					// save players
-					try {
-						Bukkit.savePlayers();
-					} catch (Throwable e) {
-						e.printStackTrace();
-					}
-					// save worlds
-					for (World w : Bukkit.getWorlds()) {
-						if (w.isAutoSave()) {
-							try {
-								w.save();
-							} catch (Throwable e) {
-								e.printStackTrace();
-							}
-						}
-					}
+					// unload plugins and save data
+					new EmergencyShutdown(config).perform();
 					// resume main thread
 					bukkitMainThread.resume();
 					// shutdown JVM
@@ -161,25 +175,19 @@ public class CrashRestartThread extends Thread {
 			}
 		}
 
+		if (stallsampler != null) {
+			stallsampler.stopSampling();
+		}
+		if (profiler != null) {
+			profiler.stopThread();
+		}
+
 		MessageLogger.debug("Graceful quit of CrashRestartThread");
 
 	}
 
-	private void dumpThread(ThreadInfo thread, Logger log) {
-		log.log(Level.SEVERE, "------------------------------");
-		log.log(Level.SEVERE, "Current Thread: " + thread.getThreadName());
-		log.log(Level.SEVERE, "\tPID: " + thread.getThreadId() + " | Suspended: " + thread.isSuspended() + " | Native: " + thread.isInNative() + " | State: " + thread.getThreadState());
-		if (thread.getLockedMonitors().length != 0) {
-			log.log(Level.SEVERE, "\tThread is waiting on monitor(s):");
-			for (MonitorInfo monitor : thread.getLockedMonitors()) {
-				log.log(Level.SEVERE, "\t\tLocked on:" + monitor.getLockedStackFrame());
-			}
-		}
-		log.log(Level.SEVERE, "\tStack:");
-		for (StackTraceElement stack : thread.getStackTrace()) {
-			log.log(Level.SEVERE, "\t\t" + stack);
-		}
-		log.log(Level.SEVERE, "------------------------------");
+	private File getStallReportFile() {
+		return new File(GlobalConstants.getStallReportsFolder(), "stall-" + System.currentTimeMillis() + ".txt");
 	}
 
 }
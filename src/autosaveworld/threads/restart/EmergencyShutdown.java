@@ -0,0 +1,141 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.restart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.core.logging.MessageLogger;
+
+// Disables plugins and saves data when main thread is frozen
+// Every step is done in separate daemon threads, so a hanging step can't block restart, after deadline remaining steps are skipped
+public class EmergencyShutdown {
+
+	private final AutoSaveWorldConfig config;
+	private long deadline;
+
+	public EmergencyShutdown(AutoSaveWorldConfig config) {
+		this.config = config;
+	}
+
+	public void perform() {
+		long start = System.currentTimeMillis();
+		deadline = start + (config.crashRestartShutdownTimeout * 1000L);
+
+		// unload plugins
+		Plugin[] plugins = Bukkit.getPluginManager().getPlugins();
+		for (int i = plugins.length - 1; i >= 0; i--) {
+			final Plugin plugin = plugins[i];
+			runStep("Disabling plugin " + plugin.getName(), config.crashRestartShutdownPluginTimeout * 1000L, new Runnable() {
+				@Override
+				public void run() {
+					Bukkit.getPluginManager().disablePlugin(plugin);
+				}
+			});
+		}
+		// save players
+		runStep("Saving players", Long.MAX_VALUE, new Runnable() {
+			@Override
+			public void run() {
+				Bukkit.savePlayers();
+			}
+		});
+		// save worlds
+		saveWorlds();
+
+		MessageLogger.warn("Emergency shutdown took " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	private void runStep(String name, long timeout, Runnable step) {
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+			MessageLogger.warn(name + " skipped, emergency shutdown deadline reached");
+			return;
+		}
+		long start = System.currentTimeMillis();
+		Thread thread = newDaemonThread(name, step);
+		thread.start();
+		try {
+			thread.join(Math.min(timeout, remaining));
+		} catch (InterruptedException e) {
+		}
+		long took = System.currentTimeMillis() - start;
+		if (thread.isAlive()) {
+			MessageLogger.warn(name + " timed out after " + took + " ms, skipping");
+		} else {
+			MessageLogger.warn(name + " took " + took + " ms");
+		}
+	}
+
+	private void saveWorlds() {
+		long start = System.currentTimeMillis();
+		List<Callable<Void>> saves = new ArrayList<Callable<Void>>();
+		for (final World w : Bukkit.getWorlds()) {
+			if (w.isAutoSave()) {
+				saves.add(new Callable<Void>() {
+					@Override
+					public Void call() {
+						long worldstart = System.currentTimeMillis();
+						try {
+							w.save();
+							MessageLogger.warn("Saving world " + w.getName() + " took " + (System.currentTimeMillis() - worldstart) + " ms");
+						} catch (Throwable e) {
+							e.printStackTrace();
+						}
+						return null;
+					}
+				});
+			}
+		}
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+			MessageLogger.warn("Saving worlds skipped, emergency shutdown deadline reached");
+			return;
+		}
+		ExecutorService savers = Executors.newFixedThreadPool(Math.max(1, config.crashRestartShutdownSaveThreads), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return newDaemonThread("AutoSaveWorld EmergencyWorldSaver", r);
+			}
+		});
+		try {
+			// invokeAll cancels not finished saves when timeout is reached
+			savers.invokeAll(saves, remaining, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+		}
+		savers.shutdownNow();
+		MessageLogger.warn("Saving worlds took " + (System.currentTimeMillis() - start) + " ms");
+	}
+
+	private static Thread newDaemonThread(String name, Runnable run) {
+		Thread thread = new Thread(run, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
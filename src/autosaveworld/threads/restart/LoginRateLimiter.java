@@ -0,0 +1,69 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.restart;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+import autosaveworld.config.AutoSaveWorldConfigMSG;
+import autosaveworld.core.logging.MessageLogger;
+
+// Allows only limited amount of logins per second for some time after server start, so players won't join all at once
+public class LoginRateLimiter implements Listener {
+
+	private AutoSaveWorldConfigMSG configmsg;
+	private int loginspersecond;
+	private long activeuntil;
+
+	private double tokens;
+	private long lastrefill = System.currentTimeMillis();
+
+	public LoginRateLimiter(AutoSaveWorldConfigMSG configmsg, int loginspersecond, long durationseconds) {
+		this.configmsg = configmsg;
+		this.loginspersecond = loginspersecond;
+		this.activeuntil = System.currentTimeMillis() + (durationseconds * 1000L);
+		this.tokens = loginspersecond;
+	}
+
+	@EventHandler(priority = EventPriority.LOW)
+	public void onAsyncLogin(AsyncPlayerPreLoginEvent e) {
+		if (e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+			return;
+		}
+		if (!tryAcquire()) {
+			MessageLogger.disallow(e, configmsg.messageAutoRestartLoginRateLimit);
+		}
+	}
+
+	private synchronized boolean tryAcquire() {
+		long now = System.currentTimeMillis();
+		if (now > activeuntil) {
+			return true;
+		}
+		tokens = Math.min(loginspersecond, tokens + (((now - lastrefill) * loginspersecond) / 1000D));
+		lastrefill = now;
+		if (tokens >= 1) {
+			tokens -= 1;
+			return true;
+		}
+		return false;
+	}
+
+}
@@ -20,14 +20,20 @@ package autosaveworld.threads.restart;
 import java.io.File;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.bukkit.Bukkit;
 
+import autosaveworld.core.GlobalConstants;
+
 public class RestartJVMshutdownhook extends Thread {
 
-	public RestartJVMshutdownhook() {
+	private boolean fastrestart;
+
+	public RestartJVMshutdownhook(boolean fastrestart) {
 		RestartWaiter.init();
+		this.fastrestart = fastrestart;
 	}
 
 	private String crashrestartscriptpath = "";
@@ -45,8 +51,10 @@ public class RestartJVMshutdownhook extends Thread {
 			}
 		}
 		// Force gc (attempt to ensure that the new instance of server will have enough mem)
-		System.gc();
-		System.gc();
+		if (!fastrestart) {
+			System.gc();
+			System.gc();
+		}
 		// Start process
 		try {
 			ProcessBuilder pb = new ProcessBuilder();
@@ -62,7 +70,10 @@ public class RestartJVMshutdownhook extends Thread {
 				String jarfilename = Bukkit.class.getResource("").getFile();
 				jarfilename = jarfilename.substring(0, jarfilename.indexOf(".jar"));
 				jarfilename = new File(jarfilename).getName() + ".jar";
-				List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+				List<String> arguments = new ArrayList<String>(ManagementFactory.getRuntimeMXBean().getInputArguments());
+				if (fastrestart) {
+					addClassDataSharingArguments(arguments, new File(jarfilename));
+				}
 				List<String> execsequence = new ArrayList<String>();
 				execsequence.add("java");
 				execsequence.addAll(arguments);
@@ -79,6 +90,50 @@ public class RestartJVMshutdownhook extends Thread {
 		}
 	}
 
+	// adds arguments that will make new jvm use (or create if it doesn't exist yet) class data sharing archive
+	private void addClassDataSharingArguments(List<String> arguments, File serverjar) {
+		int javaversion = getJavaMajorVersion();
+		if (javaversion < 13) {
+			System.out.println("[AutoSaveWorld] Fast restart requires java 13 or newer, restarting without class data sharing archive");
+			System.out.flush();
+			return;
+		}
+		Iterator<String> argumentsit = arguments.iterator();
+		while (argumentsit.hasNext()) {
+			String argument = argumentsit.next();
+			if (argument.startsWith("-XX:SharedArchiveFile") || argument.startsWith("-XX:ArchiveClassesAtExit") || argument.startsWith("-XX:+AutoCreateSharedArchive")) {
+				argumentsit.remove();
+			}
+		}
+		File archive = new File(GlobalConstants.getClassDataSharingArchivePath()).getAbsoluteFile();
+		// server jar was updated, archive is no longer valid
+		if (archive.exists() && serverjar.exists() && (archive.lastModified() < serverjar.lastModified())) {
+			archive.delete();
+		}
+		if (javaversion >= 19) {
+			// jvm will create archive itself if it doesn't exist or is outdated
+			arguments.add("-XX:+AutoCreateSharedArchive");
+			arguments.add("-XX:SharedArchiveFile=" + archive.getPath());
+		} else if (archive.exists()) {
+			arguments.add("-XX:SharedArchiveFile=" + archive.getPath());
+		} else {
+			// archive will be created when new server will stop
+			arguments.add("-XX:ArchiveClassesAtExit=" + archive.getPath());
+		}
+	}
+
+	private static int getJavaMajorVersion() {
+		String version = System.getProperty("java.specification.version", "1.7");
+		if (version.startsWith("1.")) {
+			version = version.substring(2);
+		}
+		try {
+			return Integer.parseInt(version);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
 	@Override
 	public void run() {
 		restart();
@@ -0,0 +1,163 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.restart;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+// Samples only main thread stack while it is stalled and counts identical stacks and frames
+public class StallSampler extends Thread {
+
+	private static final int MAX_REPORT_STACKS = 10;
+	private static final int MAX_REPORT_FRAMES = 20;
+
+	private final Thread bukkitMainThread;
+	private final long interval;
+	private final long starttime = System.currentTimeMillis();
+
+	private final HashMap<List<StackTraceElement>, Integer> stacks = new HashMap<List<StackTraceElement>, Integer>();
+	private final HashMap<StackTraceElement, Integer> frames = new HashMap<StackTraceElement, Integer>();
+	private int samplescount = 0;
+
+	private volatile boolean run = true;
+
+	public StallSampler(Thread bukkitMainThread, long interval) {
+		this.bukkitMainThread = bukkitMainThread;
+		this.interval = interval;
+	}
+
+	public void stopSampling() {
+		run = false;
+		try {
+			join(1000);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	@Override
+	public void run() {
+		Thread.currentThread().setName("AutoSaveWorld StallSampler");
+		while (run) {
+			StackTraceElement[] stack = bukkitMainThread.getStackTrace();
+			synchronized (this) {
+				List<StackTraceElement> stacklist = Arrays.asList(stack);
+				Integer count = stacks.get(stacklist);
+				stacks.put(stacklist, count == null ? 1 : count + 1);
+				// count frame only once per sample, so recursion won't make it look hotter
+				for (StackTraceElement frame : new HashSet<StackTraceElement>(stacklist)) {
+					Integer framecount = frames.get(frame);
+					frames.put(frame, framecount == null ? 1 : framecount + 1);
+				}
+				samplescount++;
+			}
+			try {
+				Thread.sleep(interval);
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	public synchronized int getSamplesCount() {
+		return samplescount;
+	}
+
+	// returns most common stack or empty list if there are no samples
+	public synchronized List<StackTraceElement> getTopStack() {
+		List<StackTraceElement> top = Collections.emptyList();
+		int topcount = 0;
+		for (Entry<List<StackTraceElement>, Integer> entry : stacks.entrySet()) {
+			if (entry.getValue() > topcount) {
+				top = entry.getKey();
+				topcount = entry.getValue();
+			}
+		}
+		return top;
+	}
+
+	// writes report in separate thread
+	public Future<Void> writeReport(final File file) {
+		final List<String> report = buildReport();
+		FutureTask<Void> writetask = new FutureTask<Void>(new Runnable() {
+			@Override
+			public void run() {
+				file.getParentFile().mkdirs();
+				try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+					for (String line : report) {
+						out.write(line);
+						out.newLine();
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}, null);
+		Thread writer = new Thread(writetask, "AutoSaveWorld StallReportWriter");
+		writer.setDaemon(true);
+		writer.start();
+		return writetask;
+	}
+
+	private synchronized List<String> buildReport() {
+		ArrayList<String> report = new ArrayList<String>();
+		report.add("Main thread stalled for at least " + ((System.currentTimeMillis() - starttime) / 1000) + " seconds after sampling started");
+		report.add("Samples: " + samplescount + ", interval: " + interval + " ms");
+		report.add("");
+		report.add("Hot frames (samples containing frame):");
+		for (Entry<StackTraceElement, Integer> entry : sortByCount(frames, MAX_REPORT_FRAMES)) {
+			report.add("\t" + formatCount(entry.getValue()) + " " + entry.getKey());
+		}
+		report.add("");
+		report.add("Stacks:");
+		for (Entry<List<StackTraceElement>, Integer> entry : sortByCount(stacks, MAX_REPORT_STACKS)) {
+			report.add(formatCount(entry.getValue()));
+			for (StackTraceElement frame : entry.getKey()) {
+				report.add("\t" + frame);
+			}
+			report.add("");
+		}
+		return report;
+	}
+
+	private String formatCount(int count) {
+		return count + " (" + ((count * 100) / Math.max(1, samplescount)) + "%)";
+	}
+
+	private static <T> List<Entry<T, Integer>> sortByCount(HashMap<T, Integer> counts, int limit) {
+		ArrayList<Entry<T, Integer>> entries = new ArrayList<Entry<T, Integer>>(counts.entrySet());
+		Collections.sort(entries, new Comparator<Entry<T, Integer>>() {
+			@Override
+			public int compare(Entry<T, Integer> o1, Entry<T, Integer> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+		return entries.subList(0, Math.min(limit, entries.size()));
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ *
+ */
+
+package autosaveworld.threads.restart;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import autosaveworld.config.AutoSaveWorldConfig;
+import autosaveworld.core.GlobalConstants;
+import autosaveworld.core.logging.MessageLogger;
+
+// Records interval between main thread heartbeats in a ring buffer (written only by main thread, so no locks are needed)
+// Heartbeat only marks tick start, so interval includes the time server sleeps between ticks and is never less than 50 ms
+// If tick takes longer than threshold, main thread stack is sampled until tick ends and written as collapsed stacks file
+public class TickProfiler extends Thread {
+
+	private static final int BUFFER_SIZE = 1200;
+	private static final int MAX_SAMPLES_PER_SPIKE = 1000;
+
+	private final Thread bukkitMainThread;
+	private final AutoSaveWorldConfig config;
+
+	private final AtomicLongArray tickIntervals = new AtomicLongArray(BUFFER_SIZE);
+	private volatile long ticksCount = 0;
+	private volatile long lastTickNanos = 0;
+
+	// writer thread is daemon, so it won't prevent jvm from exiting if profiler is not stopped
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "AutoSaveWorld TickProfilerWriter");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private volatile boolean run = true;
+
+	public TickProfiler(Thread bukkitMainThread, AutoSaveWorldConfig config) {
+		this.bukkitMainThread = bukkitMainThread;
+		this.config = config;
+		setDaemon(true);
+	}
+
+	public void stopThread() {
+		run = false;
+		writer.shutdown();
+	}
+
+	// called by main thread every tick
+	public void onTick() {
+		long now = System.nanoTime();
+		long last = lastTickNanos;
+		if (last != 0) {
+			long count = ticksCount;
+			int index = (int) (count % BUFFER_SIZE);
+			tickIntervals.set(index, now - last);
+			ticksCount = count + 1;
+		}
+		lastTickNanos = now;
+	}
+
+	public double getTPS() {
+		long count = Math.min(ticksCount, BUFFER_SIZE);
+		if (count == 0) {
+			return 20;
+		}
+		long total = 0;
+		for (int i = 0; i < count; i++) {
+			total += tickIntervals.get(i);
+		}
+		return Math.min(20, (count * 1000000000D) / total);
+	}
+
+	// returns tick intervals in milliseconds for given percentiles
+	public double[] getTickIntervalPercentiles(double... percentiles) {
+		int count = (int) Math.min(ticksCount, BUFFER_SIZE);
+		double[] result = new double[percentiles.length];
+		if (count == 0) {
+			return result;
+		}
+		long[] intervals = new long[count];
+		for (int i = 0; i < count; i++) {
+			intervals[i] = tickIntervals.get(i);
+		}
+		Arrays.sort(intervals);
+		for (int i = 0; i < percentiles.length; i++) {
+			int index = Math.min(count - 1, (int) Math.ceil((percentiles[i] / 100D) * count) - 1);
+			result[i] = intervals[Math.max(0, index)] / 1000000D;
+		}
+		return result;
+	}
+
+	@Override
+	public void run() {
+		Thread.currentThread().setName("AutoSaveWorld TickProfiler");
+
+		long thresholdnanos = TimeUnit.MILLISECONDS.toNanos(config.tickProfilerSpikeThreshold);
+		long lastreport = System.currentTimeMillis();
+		HashMap<String, Integer> samples = new HashMap<String, Integer>();
+		int samplescount = 0;
+		long spiketick = 0;
+
+		while (run) {
+			long ticktime = lastTickNanos;
+			long now = System.nanoTime();
+			if ((ticktime != 0) && ((now - ticktime) > thresholdnanos) && (samplescount < MAX_SAMPLES_PER_SPIKE)) {
+				// tick is still running and is already too long, sample main thread
+				spiketick = ticktime;
+				String stack = collapseStack(bukkitMainThread.getStackTrace());
+				Integer stackcount = samples.get(stack);
+				samples.put(stack, stackcount == null ? 1 : stackcount + 1);
+				samplescount++;
+			} else if ((samplescount != 0) && (ticktime != spiketick)) {
+				// spike ended
+				writeSpike(samples, TimeUnit.NANOSECONDS.toMillis(ticktime - spiketick));
+				samples = new HashMap<String, Integer>();
+				samplescount = 0;
+			}
+
+			if ((System.currentTimeMillis() - lastreport) >= 60000) {
+				lastreport = System.currentTimeMillis();
+				double[] intervals = getTickIntervalPercentiles(50, 95, 99, 100);
+				MessageLogger.debug(String.format("TPS: %.2f, tick interval p50: %.1f ms, p95: %.1f ms, p99: %.1f ms, max: %.1f ms", getTPS(), intervals[0], intervals[1], intervals[2], intervals[3]));
+			}
+
+			try {
+				Thread.sleep(config.tickProfilerSampleInterval);
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	private static String collapseStack(StackTraceElement[] stack) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = stack.length - 1; i >= 0; i--) {
+			sb.append(stack[i].getClassName()).append('.').append(stack[i].getMethodName());
+			if (i != 0) {
+				sb.append(';');
+			}
+		}
+		return sb.toString();
+	}
+
+	private void writeSpike(final HashMap<String, Integer> samples, final long ticklength) {
+		MessageLogger.warn("Tick took " + ticklength + " ms, writing sampled main thread stacks");
+		try {
+			writer.execute(new Runnable() {
+				@Override
+				public void run() {
+					File folder = new File(GlobalConstants.getLagSpikesFolder());
+					folder.mkdirs();
+					File file = new File(folder, "spike-" + System.currentTimeMillis() + "-" + ticklength + "ms.collapsed");
+					try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+						for (Entry<String, Integer> entry : samples.entrySet()) {
+							out.write(entry.getKey() + " " + entry.getValue());
+							out.newLine();
+						}
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			});
+		} catch (Throwable t) {
+		}
+	}
+
+}
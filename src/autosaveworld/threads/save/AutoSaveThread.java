@@ -108,12 +108,14 @@ public class AutoSaveThread extends IntervalTaskThread {
 		MessageLogger.debug("Saving worlds");
 		for (final World world : Bukkit.getWorlds()) {
 			if (isRunning()) {
+				long start = System.currentTimeMillis();
 				SchedulerUtils.callSyncTaskAndWait(new Runnable() {
 					@Override
 					public void run() {
 						saveWorld(world);
 					}
 				});
+				MessageLogger.debug("save", world.getName(), System.currentTimeMillis() - start, "Saved world");
 			}
 		}
 		MessageLogger.debug("Saved Worlds");
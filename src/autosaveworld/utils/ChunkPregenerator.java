@@ -0,0 +1,93 @@
+/**
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ *
+ */
+
+package autosaveworld.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.bukkit.World;
+
+import autosaveworld.core.logging.MessageLogger;
+
+// Loads (and generates if needed) chunks few at a time, each runNext call loads one chunk
+public class ChunkPregenerator implements TickBudgetedTask {
+
+	public static long getChunkKey(int x, int z) {
+		return (((long) x) << 32) | (z & 0xFFFFFFFFL);
+	}
+
+	private final World world;
+	private final ArrayList<Long> chunks;
+	private final FutureTask<Void> completion = new FutureTask<Void>(new Runnable() {
+		@Override
+		public void run() {
+		}
+	}, null);
+
+	private int processed = 0;
+	private long starttime;
+	private long lastreport;
+
+	public ChunkPregenerator(World world, Collection<Long> chunks) {
+		this.world = world;
+		this.chunks = new ArrayList<Long>(chunks);
+	}
+
+	// schedules chunks generation on main thread using not more than budgetmillis each tick
+	public Future<Void> start(long budgetmillis) {
+		starttime = System.currentTimeMillis();
+		lastreport = starttime;
+		SchedulerUtils.scheduleTickBudgetedTask(this, budgetmillis, completion);
+		return completion;
+	}
+
+	public Future<Void> getCompletion() {
+		return completion;
+	}
+
+	public int getProcessed() {
+		return processed;
+	}
+
+	public int getTotal() {
+		return chunks.size();
+	}
+
+	@Override
+	public boolean runNext() {
+		if (processed >= chunks.size()) {
+			return false;
+		}
+		long key = chunks.get(processed);
+		try {
+			world.loadChunk((int) (key >> 32), (int) key, true);
+		} catch (Throwable t) {
+			t.printStackTrace();
+		}
+		processed++;
+		long now = System.currentTimeMillis();
+		if ((now - lastreport) >= 5000) {
+			lastreport = now;
+			MessageLogger.debug("Generated " + processed + "/" + chunks.size() + " chunks in world " + world.getName());
+		}
+		return processed < chunks.size();
+	}
+
+}
@@ -19,6 +19,7 @@ package autosaveworld.utils;
 
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bukkit.Bukkit;
 
@@ -59,6 +60,48 @@ public class SchedulerUtils {
 		}
 	}
 
+	public static void callTickBudgetedTaskAndWait(TickBudgetedTask task, long budgetmillis) {
+		final LinkedBlockingQueue<Boolean> lock = new LinkedBlockingQueue<Boolean>(1);
+		scheduleTickBudgetedTask(task, budgetmillis, new Runnable() {
+			@Override
+			public void run() {
+				lock.offer(true);
+			}
+		});
+		try {
+			lock.take();
+		} catch (InterruptedException e) {
+		}
+	}
+
+	public static void scheduleTickBudgetedTask(final TickBudgetedTask task, final long budgetmillis, final Runnable onfinish) {
+		final AtomicInteger taskid = new AtomicInteger(-1);
+		taskid.set(Bukkit.getScheduler().scheduleSyncRepeatingTask(plugin, new Runnable() {
+			private boolean finished = false;
+			@Override
+			public void run() {
+				if (!finished) {
+					// do as much work as possible in the time budget, the rest will be done next tick
+					long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetmillis);
+					try {
+						do {
+							finished = !task.runNext();
+						} while (!finished && (System.nanoTime() < deadline));
+					} catch (Throwable t) {
+						t.printStackTrace();
+						finished = true;
+					}
+					if (finished) {
+						onfinish.run();
+					}
+				}
+				if (finished && (taskid.get() != -1)) {
+					Bukkit.getScheduler().cancelTask(taskid.get());
+				}
+			}
+		}, 0, 1));
+	}
+
 	public static void scheduleSyncTask(Runnable run) {
 		Bukkit.getScheduler().scheduleSyncDelayedTask(plugin, run);
 	}